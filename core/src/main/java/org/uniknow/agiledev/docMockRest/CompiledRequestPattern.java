@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.MultiValuePattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * `RequestPattern` prepared for repeated matching, yields the same result as
+ * `RequestPatternMatcher.match`.
+ *
+ * The names of the mandatory query parameters and headers are represented by
+ * a bitmask over interned names, so the common mismatches are decided by
+ * comparing the method, the literal prefix of the URL and the bitmasks
+ * without allocating or logging. Only names of patterns of the specification
+ * are interned, requests matched against them are created by `request`.
+ */
+public class CompiledRequestPattern {
+
+    /*
+     * Interned names of query parameters and headers
+     */
+    private static final Names QUERY_PARAMETERS = new Names();
+    private static final Names HEADERS = new Names();
+
+    private final RequestPattern pattern;
+
+    private final RequestMethod method;
+
+    /*
+     * URL to match when pattern is matched with specification
+     */
+    private final String url;
+
+    /*
+     * URL of specification, either literal or compiled regular expression
+     * with its literal prefix. Null when URL can only be matched by the URL
+     * matcher of the pattern.
+     */
+    private final String literalUrl;
+    private final Pattern urlPattern;
+    private final String urlPrefix;
+
+    private final Set<String> queryParameters;
+    private final long queryMask;
+    private final boolean queryInterned;
+
+    private final Set<String> headers;
+    private final long headerMask;
+    private final boolean headerInterned;
+
+    /**
+     * Constructor
+     *
+     * @param pattern
+     *            Request pattern of specification to compile
+     */
+    public CompiledRequestPattern(@NotNull RequestPattern pattern) {
+        this(pattern, true);
+    }
+
+    private CompiledRequestPattern(RequestPattern pattern,
+        boolean specification) {
+        this.pattern = pattern;
+        this.method = pattern.getMethod();
+        this.url = RequestPatternMatcher.urlToMatch(pattern);
+
+        this.literalUrl = pattern.getUrl();
+        if (specification && pattern.getUrlPattern() != null) {
+            this.urlPattern = Pattern.compile(pattern.getUrlPattern());
+            this.urlPrefix = literalPrefix(pattern.getUrlPattern());
+        } else {
+            this.urlPattern = null;
+            this.urlPrefix = null;
+        }
+
+        this.queryParameters = names(pattern.getQueryParameters());
+        this.queryMask = specification ? QUERY_PARAMETERS
+            .intern(queryParameters) : QUERY_PARAMETERS.mask(queryParameters);
+        this.queryInterned = QUERY_PARAMETERS.interned(queryParameters);
+
+        this.headers = names(pattern.getHeaders());
+        this.headerMask = specification ? HEADERS.intern(headers) : HEADERS
+            .mask(headers);
+        this.headerInterned = HEADERS.interned(headers);
+    }
+
+    /**
+     * Returns request prepared for being matched against compiled patterns
+     * of the specification. The names of its query parameters and headers
+     * are not interned and the regular expression of its URL is not
+     * compiled, the request can't be used to match other requests.
+     *
+     * @param request
+     *            Request pattern to match against specification
+     */
+    public static CompiledRequestPattern request(
+        @NotNull RequestPattern request) {
+        return new CompiledRequestPattern(request, false);
+    }
+
+    public RequestPattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Checks whether the request 'matches' this pattern, see
+     * `RequestPatternMatcher.match`.
+     *
+     * @param request
+     *            Compiled request pattern that will be compared with this
+     *            pattern
+     * @return true if request patterns match; false otherwise
+     */
+    public boolean matches(@NotNull CompiledRequestPattern request) {
+        return matchesParameters(request) && matchesUrl(request.getUrl());
+    }
+
+    /**
+     * Checks whether the request has the method and contains the mandatory
+     * query parameters and headers of this pattern, regardless of its URL.
+     */
+    public boolean matchesParameters(@NotNull CompiledRequestPattern request) {
+        if (method == null || !method.equals(request.method)) {
+            return false;
+        }
+
+        // Names of mandatory parameters are compared by bitmask, names that
+        // could not be interned are compared by name
+        if ((request.queryMask & queryMask) != queryMask
+            || (!queryInterned && !request.queryParameters
+                .containsAll(queryParameters))) {
+            return false;
+        }
+        if ((request.headerMask & headerMask) != headerMask
+            || (!headerInterned && !request.headers.containsAll(headers))) {
+            return false;
+        }
+        return true;
+    }
+
+    private boolean matchesUrl(String url) {
+        if (literalUrl != null) {
+            return literalUrl.equals(url);
+        }
+        if (urlPattern != null) {
+            return url.startsWith(urlPrefix)
+                && urlPattern.matcher(url).matches();
+        }
+        return pattern.getUrlMatcher().match(url).isExactMatch();
+    }
+
+    private String getUrl() {
+        if (url == null) {
+            throw new SystemError(
+                "Received Request pattern without proper URL to match");
+        }
+        return url;
+    }
+
+    private static Set<String> names(Map<String, MultiValuePattern> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(values.keySet());
+    }
+
+    /**
+     * Returns the literal text every string matching the regular expression
+     * starts with.
+     */
+    static String literalPrefix(String regex) {
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '|') {
+                // Alternatives don't share a prefix
+                return "";
+            }
+            if (c == '\\' && i + 1 < regex.length()) {
+                i++;
+            }
+        }
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length()
+                    && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    prefix.append(regex.charAt(++i));
+                    continue;
+                }
+                break;
+            }
+            if ("*?{".indexOf(c) >= 0) {
+                // Quantifier makes preceding character optional
+                if (prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            }
+            if (".[]()+^$".indexOf(c) >= 0) {
+                break;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Returns whether name of query parameter has been interned
+     */
+    static boolean isInternedQueryParameter(String name) {
+        return QUERY_PARAMETERS.interned(Collections.singleton(name));
+    }
+
+    /**
+     * Assigns a bit to each name, names beyond the 64th are not interned.
+     */
+    private static class Names {
+        private final Map<String, Long> bits = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        /**
+         * Returns bitmask of names, interning names not seen before
+         */
+        long intern(Set<String> names) {
+            long mask = 0;
+            for (String name : names) {
+                Long bit = bits.get(name);
+                if (bit == null) {
+                    bit = intern(name);
+                }
+                if (bit != null) {
+                    mask |= bit;
+                }
+            }
+            return mask;
+        }
+
+        /**
+         * Returns bitmask of the interned names among names
+         */
+        long mask(Set<String> names) {
+            long mask = 0;
+            for (String name : names) {
+                Long bit = bits.get(name);
+                if (bit != null) {
+                    mask |= bit;
+                }
+            }
+            return mask;
+        }
+
+        boolean interned(Set<String> names) {
+            for (String name : names) {
+                if (!bits.containsKey(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized Long intern(String name) {
+            Long bit = bits.get(name);
+            if (bit == null && next.get() < Long.SIZE) {
+                bit = 1L << next.getAndIncrement();
+                bits.put(name, bit);
+            }
+            return bit;
+        }
+    }
+}
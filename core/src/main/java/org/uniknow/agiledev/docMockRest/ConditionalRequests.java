@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.google.common.hash.Hashing;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Validators of static response bodies, computed once when the body is
+ * loaded, and evaluation of the conditional headers of requests against
+ * them.
+ */
+public final class ConditionalRequests {
+
+    /*
+     * Preferred format of HTTP dates, RFC_1123_DATE_TIME omits the leading
+     * zero of the day
+     */
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter
+        .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Returns strong entity tag based on hash of body
+     */
+    public static String etag(byte[] body) {
+        return '"' + Hashing.murmur3_128().hashBytes(body).toString() + '"';
+    }
+
+    /**
+     * Returns entity tag of encoded representation of body with entity tag
+     */
+    public static String etag(String etag, String encoding) {
+        return etag.substring(0, etag.length() - 1) + '-' + encoding + '"';
+    }
+
+    /**
+     * Returns time formatted as HTTP date
+     */
+    public static String httpDate(long millis) {
+        return HTTP_DATE.format(Instant.ofEpochMilli(millis).atZone(
+            ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns whether the response with given validators is not modified
+     * according to the conditional headers of the request. `If-None-Match`
+     * takes precedence over `If-Modified-Since`.
+     *
+     * @param ifNoneMatch
+     *            `If-None-Match` header of request, null when absent
+     * @param ifModifiedSince
+     *            `If-Modified-Since` header of request, null when absent
+     * @param etag
+     *            `ETag` of response, null when absent
+     * @param lastModified
+     *            `Last-Modified` of response, null when absent
+     */
+    public static boolean notModified(String ifNoneMatch,
+        String ifModifiedSince, String etag, String lastModified) {
+        if (ifNoneMatch != null) {
+            return etag != null && matchesAny(ifNoneMatch, etag);
+        }
+        if (ifModifiedSince != null && lastModified != null) {
+            try {
+                return !parse(lastModified).isAfter(parse(ifModifiedSince));
+            } catch (DateTimeParseException error) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the list of entity tags contains the entity tag, using
+     * the weak comparison defined for `If-None-Match`
+     */
+    private static boolean matchesAny(String etags, String etag) {
+        String opaque = opaque(etag);
+        for (String candidate : etags.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaque.equals(opaque(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static ZonedDateTime parse(String date) {
+        return ZonedDateTime.parse(date.trim(),
+            DateTimeFormatter.RFC_1123_DATE_TIME);
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+/**
+ * Number of threads of the embedded server handling requests.
+ *
+ * Stubs with a delay and slow response transformers hold a thread for the
+ * whole request, so the number of threads bounds the number of such requests
+ * in flight. Threads are started on demand and stopped when idle, a large
+ * number only costs memory while requests are in flight.
+ */
+public final class ContainerThreads {
+
+    /**
+     * Number of threads used by default, as configured by WireMock
+     */
+    public static final int DEFAULT = 10;
+
+    /**
+     * Minimum number of threads, part of the threads is reserved by the
+     * server for accepting connections
+     */
+    public static final int MINIMUM = 5;
+
+    private ContainerThreads() {
+    }
+
+    /**
+     * Sets number of threads handling requests within configuration
+     *
+     * @throws IllegalArgumentException
+     *             when number of threads is below the minimum
+     */
+    public static WireMockConfiguration apply(
+        WireMockConfiguration configuration, int threads) {
+        if (threads < MINIMUM) {
+            throw new IllegalArgumentException("container threads below "
+                + MINIMUM + ": " + threads);
+        }
+        return configuration.containerThreads(threads);
+    }
+}
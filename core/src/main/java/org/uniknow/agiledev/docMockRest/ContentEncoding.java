@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression of static response bodies, done once when the body is loaded,
+ * and selection of the compressed body based on the `Accept-Encoding` of the
+ * request.
+ */
+public final class ContentEncoding {
+
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+
+    public static final String VARY = "Vary";
+
+    public static final String GZIP = "gzip";
+
+    /**
+     * Regular expression matching `Accept-Encoding` values that accept gzip,
+     * i.e. contain gzip without a quality of zero.
+     */
+    public static final String ACCEPTS_GZIP = "(?i)(.*,)?\\s*gzip\\s*"
+        + "(;\\s*q=(?!0(\\.0*)?\\s*(,|$))[01](\\.\\d*)?)?\\s*(,.*)?";
+
+    /**
+     * Bodies smaller than this size are not compressed
+     */
+    public static final int MINIMUM_SIZE = 1024;
+
+    private static final Pattern ACCEPTS_GZIP_PATTERN = Pattern
+        .compile(ACCEPTS_GZIP);
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Returns whether the response may be gzip compressed.
+     *
+     * @param acceptEncoding
+     *            Value of `Accept-Encoding` header of request, null when
+     *            absent
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null
+            && ACCEPTS_GZIP_PATTERN.matcher(acceptEncoding).matches();
+    }
+
+    /**
+     * Returns gzip compressed body.
+     *
+     * @return compressed body or null when body is too small or does not get
+     *         smaller by compressing it
+     */
+    public static byte[] gzip(byte[] body) {
+        if (body == null || body.length < MINIMUM_SIZE) {
+            return null;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(
+            body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException error) {
+            throw new SystemError(error);
+        }
+        return compressed.size() < body.length ? compressed.toByteArray()
+            : null;
+    }
+}
@@ -16,6 +16,7 @@
 package org.uniknow.agiledev.docMockRest;
 
 import com.github.jknack.handlebars.*;
+import com.google.common.hash.Hashing;
 import org.raml.model.SecurityReference;
 
 import java.io.IOException;
@@ -23,6 +24,11 @@ import java.util.*;
 
 public class HandlebarsHelpers {
 
+    /*
+     * Name of render data containing the identifiers created by toUniqueID
+     */
+    private static final String UNIQUE_IDS = "toUniqueID.ids";
+
     public static Helper<Object> lowerCaseHelper() {
         return new Helper<Object>() {
 
@@ -138,6 +144,11 @@ public class HandlebarsHelpers {
         };
     }
 
+    /**
+     * Returns helper converting string into MD5 hex identifier. Identifiers
+     * are remembered during a render, as the same string is usually converted
+     * for every link to it.
+     */
     public static Helper<Object> toUniqueID() {
         return new Helper<Object>() {
             @Override
@@ -146,19 +157,14 @@ public class HandlebarsHelpers {
                 if (o == null) {
                     return "";
                 } else if (o instanceof String) {
-                    try {
-                        java.security.MessageDigest md = java.security.MessageDigest
-                            .getInstance("MD5");
-                        byte[] array = md.digest(((String) o).getBytes());
-                        StringBuffer sb = new StringBuffer();
-                        for (int i = 0; i < array.length; ++i) {
-                            sb.append(Integer.toHexString(
-                                (array[i] & 0xFF) | 0x100).substring(1, 3));
-                        }
-                        return sb.toString();
-                    } catch (java.security.NoSuchAlgorithmException e) {
+                    Map<String, String> ids = options.data(UNIQUE_IDS);
+                    if (ids == null) {
+                        ids = new HashMap<>();
+                        options.data(UNIQUE_IDS, ids);
                     }
-                    return null;
+                    return ids.computeIfAbsent((String) o,
+                        value -> Hashing.md5().hashBytes(value.getBytes())
+                            .toString());
                 } else {
                     return "FAILED";
                 }
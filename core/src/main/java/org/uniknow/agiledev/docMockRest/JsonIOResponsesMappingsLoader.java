@@ -15,13 +15,20 @@
  */
 package org.uniknow.agiledev.docMockRest;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import com.github.tomakehurst.wiremock.stubbing.StubMappings;
-import org.apache.commons.io.IOUtils;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer;
@@ -31,6 +38,23 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Class responsible for loading responses in json file
@@ -40,6 +64,29 @@ public class JsonIOResponsesMappingsLoader implements MappingsLoader {
     private final static Logger LOG = LoggerFactory
         .getLogger(SwaggerMockServer.class);
 
+    /*
+     * Mapper shared by all loaders, thread safe once configured
+     */
+    private final static ObjectMapper MAPPER = new ObjectMapper();
+
+    /*
+     * Mapper leaving out the body of responses, used to copy stub responses
+     * without encoding their body
+     */
+    private final static ObjectMapper WITHOUT_BODY = new ObjectMapper()
+        .addMixIn(ResponseDefinition.class, WithoutBody.class);
+
+    /*
+     * Number of threads reading body files
+     */
+    private final static int BODY_FILE_THREADS = Math.max(2, Runtime
+        .getRuntime().availableProcessors());
+
+    /*
+     * Maximum number of stub responses waiting for their body file
+     */
+    private final static int MAXIMUM_PENDING = 1024;
+
     /*
      * Contains location of file containing stub responses
      */
@@ -50,6 +97,28 @@ public class JsonIOResponsesMappingsLoader implements MappingsLoader {
      */
     private final SwaggerMockServer mockServer;
 
+    /*
+     * Body files by name, read in the background
+     */
+    private final Map<String, CompletableFuture<Body>> bodyFiles =
+        new HashMap<>();
+
+    /*
+     * Bodies by hash of their content
+     */
+    private final ConcurrentMap<HashCode, Body> contents =
+        new ConcurrentHashMap<>();
+
+    /*
+     * Bodies inlined in at least one stub response
+     */
+    private final Set<byte[]> inlined = Collections
+        .newSetFromMap(new IdentityHashMap<>());
+
+    private int mappings;
+
+    private long deduplicatedBytes;
+
     /**
      * Constructor
      * 
@@ -74,57 +143,262 @@ public class JsonIOResponsesMappingsLoader implements MappingsLoader {
 
     @Override
     public void loadMappingsInto(StubMappings stubMappings) throws SystemError {
+        readMappings(stubMappings::addMapping);
+    }
+
+    /**
+     * Returns stub responses within file, with the content of their body
+     * files inlined. Responses of which the body is worth compressing are
+     * followed by a stub returning the gzip compressed body to requests
+     * accepting gzip.
+     */
+    public List<StubMapping> readMappings() throws SystemError {
+        List<StubMapping> responses = new ArrayList<>();
+        readMappings(responses::add);
+        return responses;
+    }
+
+    /**
+     * Passes stub responses to consumer while reading them from the file, so
+     * only a single stub response is held in memory by the parser. Body
+     * files are read in the background, the stub responses are passed in
+     * order once their body file has been read.
+     */
+    private void readMappings(Consumer<StubMapping> consumer)
+        throws SystemError {
 
         // JsonStubMappingCreator jsonStubMappingCreator = new
         // JsonStubMappingCreator(
         // stubMappings);
 
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            StubMapping[] mappings = mapper.readValue(locationResponsesFile,
-                StubMapping[].class);
-
-            for (StubMapping mapping : mappings) {
-                // Check whether operation exist for specified stub response
-                // NOTE 由于stubmapping（wiremock定义）里面没有operationid，只能用request pattern获取。
-                // 考虑分别处理，在不需要response文件的时候使用operationid，
-                // 是不是不要response文件的时候根本就不需要getOperation？ - 貌似是的。
-                if (mockServer.getOperation(mapping.getRequest()) != null) {
-
-
-                    ResponseDefinition response = mapping.getResponse();
-
-                    // When body file specified load response and put in body.
-                    // Reason for this is that responses are within jar and
-                    // wiremock is not able to handle those correctly
-                    if (response != null && response.getBodyFileName() != null) {
-                        URL locationResponseBodyFile = getClass()
-                            .getClassLoader().getResource(
-                                response.getBodyFileName());
-                        if (locationResponseBodyFile != null) {
-                            LOG.info("Reading response body from {}",
-                                locationResponseBodyFile);
-                            mapping.setResponse(ResponseDefinitionBuilder
-                                .like(response)
-                                .withBody(
-                                    IOUtils.toString(locationResponseBodyFile
-                                        .openStream())).withBodyFile(null)
-                                .build());
-                        } else {
-                            throw new SystemError("Can't find body file "
-                                + response.getBodyFileName());
-                        }
-                    }
-
-                    stubMappings.addMapping(mapping);
+        bodyFiles.clear();
+        contents.clear();
+        inlined.clear();
+        mappings = 0;
+        deduplicatedBytes = 0;
+
+        long started = System.nanoTime();
+        ExecutorService executor = Executors
+            .newFixedThreadPool(BODY_FILE_THREADS);
+        Deque<PendingMapping> pending = new ArrayDeque<>();
+        try (JsonParser parser = MAPPER.getFactory().createParser(
+            locationResponsesFile)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new SystemError("Expected array of stub responses");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                pending.add(readMapping(
+                    MAPPER.readValue(parser, StubMapping.class), executor));
+                while (!pending.isEmpty()
+                    && (pending.peek().body.isDone()
+                        || pending.size() > MAXIMUM_PENDING)) {
+                    complete(pending.poll(), consumer);
+                }
+            }
+            if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                throw new SystemError("Expected stub response instead of "
+                    + parser.getCurrentToken());
+            }
+            while (!pending.isEmpty()) {
+                complete(pending.poll(), consumer);
+            }
+        } catch (IOException error) {
+            throw new SystemError(error);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Loaded {} stub responses in {} ms, read {} body files, "
+            + "{} bytes shared between stub responses", mappings,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+            bodyFiles.size(), deduplicatedBytes);
+    }
+
+    /**
+     * Validates stub response and starts reading its body file
+     */
+    private PendingMapping readMapping(StubMapping mapping,
+        ExecutorService executor) {
+        // Check whether operation exist for specified stub response
+        // NOTE 由于stubmapping（wiremock定义）里面没有operationid，只能用request pattern获取。
+        // 考虑分别处理，在不需要response文件的时候使用operationid，
+        // 是不是不要response文件的时候根本就不需要getOperation？ - 貌似是的。
+        if (mockServer.getOperation(mapping.getRequest()) != null) {
+
+            ResponseDefinition response = mapping.getResponse();
+
+            // When body file specified load response and put in body.
+            // Reason for this is that responses are within jar and
+            // wiremock is not able to handle those correctly
+            if (response != null && response.getBodyFileName() != null) {
+                URL locationResponseBodyFile = getClass().getClassLoader()
+                    .getResource(response.getBodyFileName());
+                if (locationResponseBodyFile != null) {
+                    CompletableFuture<Body> body = bodyFiles
+                        .computeIfAbsent(response.getBodyFileName(),
+                            name -> CompletableFuture.supplyAsync(
+                                () -> readBody(locationResponseBodyFile),
+                                executor));
+                    return new PendingMapping(mapping, body);
                 } else {
-                    throw new SystemError(
-                        "Attempting to create stub for non existing operation ('"
-                            + mapping.getRequest() + "')");
+                    throw new SystemError("Can't find body file "
+                        + response.getBodyFileName());
                 }
             }
+            return new PendingMapping(mapping,
+                CompletableFuture.completedFuture(null));
+        } else {
+            throw new SystemError(
+                "Attempting to create stub for non existing operation ('"
+                    + mapping.getRequest() + "')");
+        }
+    }
+
+    /**
+     * Inlines body file of stub response and passes it to consumer
+     */
+    private void complete(PendingMapping pending,
+        Consumer<StubMapping> consumer) throws IOException {
+        StubMapping mapping = pending.mapping;
+
+        Body body;
+        try {
+            body = pending.body.join();
+        } catch (CompletionException error) {
+            throw error.getCause() instanceof SystemError ? (SystemError) error
+                .getCause() : new SystemError(error.getCause());
+        }
+
+        byte[] gzip;
+        if (body != null) {
+            if (!inlined.add(body.content)) {
+                deduplicatedBytes += body.content.length;
+            }
+            mapping.setResponse(ResponseDefinitionBuilder
+                .like(mapping.getResponse()).withBody(body.content)
+                .withBodyFile(null).build());
+            gzip = body.gzip;
+        } else {
+            gzip = mapping.getResponse() != null ? ContentEncoding
+                .gzip(mapping.getResponse().getByteBody()) : null;
+        }
+
+        StubMapping compressed = gzip != null ? gzipVariant(mapping, gzip)
+            : null;
+        if (compressed != null) {
+            mapping.setResponse(ResponseDefinitionBuilder
+                .like(mapping.getResponse())
+                .withHeader(ContentEncoding.VARY,
+                    ContentEncoding.ACCEPT_ENCODING).build());
+        }
+        consumer.accept(mapping);
+        if (compressed != null) {
+            consumer.accept(compressed);
+        }
+        mappings++;
+    }
+
+    /**
+     * Returns stub returning the gzip compressed body of the stub response to
+     * requests accepting gzip. The compressed stub takes precedence over the
+     * stub response, since both match requests accepting gzip.
+     */
+    private StubMapping gzipVariant(StubMapping mapping, byte[] gzip)
+        throws IOException {
+        ObjectNode variant = WITHOUT_BODY.valueToTree(mapping);
+        variant.remove("uuid");
+
+        object((ObjectNode) variant.get("request"), "headers")
+            .putObject(ContentEncoding.ACCEPT_ENCODING)
+            .put("matches", ContentEncoding.ACCEPTS_GZIP);
+
+        ObjectNode response = (ObjectNode) variant.get("response");
+        object(response, "headers").put(ContentEncoding.CONTENT_ENCODING,
+            ContentEncoding.GZIP).put(ContentEncoding.VARY,
+            ContentEncoding.ACCEPT_ENCODING);
+
+        // Body set afterwards, sharing compressed body between stubs
+        StubMapping compressed = MAPPER.treeToValue(variant,
+            StubMapping.class);
+        compressed.setPriority((mapping.getPriority() != null ? mapping
+            .getPriority() : StubMapping.DEFAULT_PRIORITY) - 1);
+        compressed.setResponse(ResponseDefinitionBuilder
+            .like(compressed.getResponse()).withBody(gzip).build());
+        return compressed;
+    }
+
+    /**
+     * Returns number of bytes of body files that are shared by stub
+     * responses instead of being kept in memory once per stub response, by
+     * the last read of the stub responses
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    private ObjectNode object(ObjectNode parent, String name) {
+        JsonNode child = parent.get(name);
+        return child instanceof ObjectNode ? (ObjectNode) child : parent
+            .putObject(name);
+    }
+
+    /**
+     * Returns content of body file as is, without decoding it into a string
+     * that would take twice the size of the file. Body files with the same
+     * content share the same body.
+     */
+    private Body readBody(URL bodyFile) {
+        LOG.info("Reading response body from {}", bodyFile);
+        byte[] content;
+        try (InputStream in = bodyFile.openStream()) {
+            content = ByteStreams.toByteArray(in);
         } catch (IOException error) {
             throw new SystemError(error);
         }
+
+        HashCode hash = Hashing.sha256().hashBytes(content);
+        Body body = contents.get(hash);
+        if (body == null) {
+            body = new Body(content);
+            Body previous = contents.putIfAbsent(hash, body);
+            if (previous != null) {
+                body = previous;
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Leaves out body of response definitions
+     */
+    @JsonIgnoreProperties({ "body", "jsonBody", "base64Body", "bodyFileName" })
+    private static abstract class WithoutBody {
+    }
+
+    /**
+     * Content of body file with its gzip compressed variant
+     */
+    private static class Body {
+        private final byte[] content;
+        private final byte[] gzip;
+
+        private Body(byte[] content) {
+            this.content = content;
+            this.gzip = ContentEncoding.gzip(content);
+        }
+    }
+
+    /**
+     * Stub response waiting for its body file to be read
+     */
+    private static class PendingMapping {
+        private final StubMapping mapping;
+        private final CompletableFuture<Body> body;
+
+        private PendingMapping(StubMapping mapping,
+            CompletableFuture<Body> body) {
+            this.mapping = mapping;
+            this.body = body;
+        }
     }
 }
@@ -18,6 +18,7 @@ package org.uniknow.agiledev.docMockRest;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
+import org.uniknow.agiledev.docMockRest.raml.RamlConfig;
 import org.uniknow.agiledev.docMockRest.raml.RamlMockServer;
 import org.uniknow.agiledev.docMockRest.swagger.SwaggerConfig;
 import org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer;
@@ -54,22 +55,65 @@ public class MockServerStandalone {
             .withRequiredArg().ofType(Integer.class).defaultsTo(80);
         OptionSpec<String> responses = parser.accepts("responses")
             .withRequiredArg().ofType(String.class);
+        OptionSpec<Long> responsesCache = parser
+            .accepts("responses-cache",
+                "specifies maximum size in MB of response files kept in memory")
+            .withRequiredArg().ofType(Long.class).defaultsTo(64L);
+        OptionSpec<Long> largeResponses = parser
+            .accepts("large-responses",
+                "specifies size in MB from which response files are not cached")
+            .withRequiredArg().ofType(Long.class).defaultsTo(8L);
+        OptionSpec<String> ramlSnapshot = parser
+            .accepts("raml-snapshot",
+                "specifies file in which parsed RAML file is kept")
+            .withRequiredArg().ofType(String.class);
+
+        OptionSpec<Integer> containerThreads = parser
+            .accepts("container-threads",
+                "specifies maximum number of threads handling requests")
+            .withRequiredArg().ofType(Integer.class)
+            .defaultsTo(ContainerThreads.DEFAULT);
+
+        OptionSpec<Integer> journalCapacity = parser
+            .accepts("journal-capacity",
+                "specifies maximum number of requests kept in journal")
+            .withRequiredArg().ofType(Integer.class)
+            .defaultsTo(RequestJournal.DEFAULT_CAPACITY);
+        OptionSpec<Integer> journalSampling = parser
+            .accepts("journal-sampling",
+                "specifies that one in given number of requests is journaled")
+            .withRequiredArg().ofType(Integer.class).defaultsTo(1);
+        OptionSpec<Void> journalCompact = parser.accepts("journal-compact",
+            "specifies that journal keeps method, URL and status only");
 
         OptionSet options = parser.parse(args);
+        RequestJournal requestJournal = RequestJournal.create()
+            .setCapacity(journalCapacity.value(options))
+            .setSampling(journalSampling.value(options))
+            .setCompact(options.has(journalCompact));
 
         if (options.has(raml) && options.has(swagger)) {
             throw new SystemError("Can't specify both RAML and Swagger");
         } else if (options.has(raml)) {
             // Create MockServer supporting RAML
             new RamlMockServer(raml.value(options), port.value(options),
-                responses.value(options));
+                responses.value(options), RamlConfig.create()
+                    .setResponseCacheSize(
+                        responsesCache.value(options) * 1024 * 1024)
+                    .setLargeBodyThreshold(
+                        largeResponses.value(options) * 1024 * 1024)
+                    .setSnapshotLocation(ramlSnapshot.value(options))
+                    .setContainerThreads(containerThreads.value(options))
+                    .setRequestJournal(requestJournal));
 
         } else if (options.has(swagger)) {
             // Create MockServer supporting Swagger
             // NOTE no repsonses file?
 
             new SwaggerMockServer(SwaggerConfig.create()
-                .setResponseFileLocation(swagger.value(options)),
+                .setResponseFileLocation(swagger.value(options))
+                .setContainerThreads(containerThreads.value(options))
+                .setRequestJournal(requestJournal),
                 port.value(options));
         } else {
             parser.printHelpOn(System.out);
@@ -0,0 +1,367 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestListener;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.http.Response;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Journal of the requests served by a mock server, replacing the unbounded
+ * journal of WireMock.
+ *
+ * The journal retains the most recent requests within a ring buffer of fixed
+ * capacity, recording a request doesn't lock. Requests can be sampled, in
+ * general or per operation, and the journal can retain only the method, URL,
+ * operation, status and duration of a request instead of the complete
+ * request. Verification only sees the requests retained.
+ */
+public class RequestJournal implements RequestListener {
+
+    /**
+     * Number of requests retained by default
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    public static RequestJournal create() {
+        return new RequestJournal();
+    }
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    /*
+     * One in how many requests is recorded
+     */
+    private int sampling = 1;
+
+    private final Map<String, Integer> operationSampling =
+        new ConcurrentHashMap<>();
+
+    private boolean compact = false;
+
+    /*
+     * Resolves the operation of a request, null when requests have no
+     * operation
+     */
+    private volatile Function<Request, String> operations;
+
+    /*
+     * Resolves the moment, in nanoseconds, at which serving a request
+     * started, null when unknown
+     */
+    private volatile ToLongFunction<Request> started;
+
+    /*
+     * Ring buffer, created when the journal is attached to a server
+     */
+    private volatile AtomicReferenceArray<Entry> entries;
+
+    /*
+     * Sequence number of next recorded request
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /*
+     * Number of requests received, including the ones not sampled
+     */
+    private final AtomicLong received = new AtomicLong();
+
+    /**
+     * Sets maximum number of requests retained, older requests are
+     * overwritten by newer ones.
+     */
+    public RequestJournal setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity of journal must be positive");
+        }
+        checkNotAttached();
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Sets that on average one in `sampling` requests is recorded
+     */
+    public RequestJournal setSampling(int sampling) {
+        this.sampling = checkSampling(sampling);
+        return this;
+    }
+
+    /**
+     * Sets that on average one in `sampling` requests for operation is
+     * recorded, overriding the general sampling.
+     */
+    public RequestJournal setSampling(@NotNull String operationId,
+        int sampling) {
+        operationSampling.put(operationId, checkSampling(sampling));
+        return this;
+    }
+
+    /**
+     * Sets whether only method, URL, operation, status and duration are
+     * retained instead of the complete request. Compact entries can only be
+     * verified by method and URL.
+     */
+    public RequestJournal setCompact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * Attaches journal to mock server, called by the mock server when it is
+     * created.
+     *
+     * @param operations
+     *            Resolves identifier of the operation of a request, null if
+     *            requests have no operations
+     */
+    public void attach(Function<Request, String> operations) {
+        attach(operations, null);
+    }
+
+    /**
+     * Attaches journal to mock server, called by the mock server when it is
+     * created.
+     *
+     * @param operations
+     *            Resolves identifier of the operation of a request, null if
+     *            requests have no operations
+     * @param started
+     *            Resolves moment, as given by `System.nanoTime()`, at which
+     *            serving a request started, null if unknown
+     */
+    public void attach(Function<Request, String> operations,
+        ToLongFunction<Request> started) {
+        checkNotAttached();
+        this.operations = operations;
+        this.started = started;
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void requestReceived(Request request, Response response) {
+        received.incrementAndGet();
+        AtomicReferenceArray<Entry> entries = this.entries;
+        if (entries == null) {
+            return;
+        }
+
+        Function<Request, String> operations = this.operations;
+        String operationId = operations != null ? operations.apply(request)
+            : null;
+        Integer sampling = operationId != null ? operationSampling
+            .get(operationId) : null;
+        int oneIn = sampling != null ? sampling : this.sampling;
+        if (oneIn > 1 && ThreadLocalRandom.current().nextInt(oneIn) != 0) {
+            return;
+        }
+
+        ToLongFunction<Request> started = this.started;
+        long duration = started != null ? System.nanoTime()
+            - started.applyAsLong(request) : -1;
+        long number = sequence.getAndIncrement();
+        entries.set((int) (number % entries.length()), new Entry(number,
+            request, operationId, response.getStatus(), duration, compact));
+    }
+
+    /**
+     * Returns retained requests, oldest first
+     */
+    public List<Entry> getEntries() {
+        AtomicReferenceArray<Entry> entries = this.entries;
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+
+        long last = sequence.get();
+        long first = Math.max(0, last - entries.length());
+        List<Entry> result = new ArrayList<>((int) (last - first));
+        for (long number = first; number < last; number++) {
+            Entry entry = entries.get((int) (number % entries.length()));
+            // Skip entries overwritten or not written yet
+            if (entry != null && entry.sequence == number) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns retained requests matching pattern
+     *
+     * @throws IllegalArgumentException
+     *             when the journal is compact and pattern matches headers,
+     *             query parameters or body
+     */
+    public List<Entry> find(@NotNull RequestPattern pattern) {
+        if (compact
+            && (pattern.getHeaders() != null
+                || pattern.getQueryParameters() != null
+                || pattern.getBodyPatterns() != null)) {
+            throw new IllegalArgumentException("Compact journal can't match "
+                + "headers, query parameters or body of requests");
+        }
+
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : getEntries()) {
+            if (entry.matches(pattern)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns number of retained requests matching pattern
+     */
+    public int count(@NotNull RequestPattern pattern) {
+        return find(pattern).size();
+    }
+
+    /**
+     * Returns number of requests received, including the requests that were
+     * not sampled or are no longer retained
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * Removes all retained requests
+     */
+    public void reset() {
+        AtomicReferenceArray<Entry> entries = this.entries;
+        if (entries != null) {
+            for (int i = 0; i < entries.length(); i++) {
+                entries.set(i, null);
+            }
+        }
+        received.set(0);
+    }
+
+    private void checkNotAttached() {
+        if (entries != null) {
+            throw new IllegalStateException(
+                "Journal already attached to mock server");
+        }
+    }
+
+    private static int checkSampling(int sampling) {
+        if (sampling < 1) {
+            throw new IllegalArgumentException("Sampling must be positive");
+        }
+        return sampling;
+    }
+
+    /**
+     * Request retained by journal
+     */
+    public static class Entry {
+        private final long sequence;
+        private final long timestamp = System.currentTimeMillis();
+        private final RequestMethod method;
+        private final String url;
+        private final String operationId;
+        private final int status;
+
+        /*
+         * Nanoseconds spent serving request, -1 if unknown
+         */
+        private final long duration;
+
+        /*
+         * Complete request, null when journal is compact
+         */
+        private final LoggedRequest request;
+
+        private Entry(long sequence, Request request, String operationId,
+            int status, long duration, boolean compact) {
+            this.sequence = sequence;
+            this.method = request.getMethod();
+            this.url = request.getUrl();
+            this.operationId = operationId;
+            this.status = status;
+            this.duration = duration;
+            this.request = compact ? null : LoggedRequest.createFrom(request);
+        }
+
+        private boolean matches(RequestPattern pattern) {
+            if (request != null) {
+                return pattern.match(request).isExactMatch();
+            }
+            return (RequestMethod.ANY.equals(pattern.getMethod()) || method
+                .equals(pattern.getMethod()))
+                && pattern.getUrlMatcher().match(url).isExactMatch();
+        }
+
+        /**
+         * Returns time request was recorded, in milliseconds since epoch
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public RequestMethod getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Returns identifier of operation of request, null if unknown
+         */
+        public String getOperationId() {
+            return operationId;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns time spent serving request in nanoseconds, from the start of
+         * dispatching it until its response was recorded, -1 if unknown
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Returns complete request, null when the journal is compact
+         */
+        public LoggedRequest getRequest() {
+            return request;
+        }
+    }
+}
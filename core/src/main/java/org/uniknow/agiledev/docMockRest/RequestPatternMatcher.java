@@ -138,6 +138,18 @@ public class RequestPatternMatcher {
      * Returns URL string that will be compared
      */
     private String getUrlToMatch(RequestPattern pattern) {
+        String response = urlToMatch(pattern);
+        if (response == null) {
+            throw new SystemError(
+                "Received Request pattern without proper URL to match");
+        }
+        return response;
+    }
+
+    /**
+     * Returns URL string that will be compared, null when pattern has no URL
+     */
+    static String urlToMatch(RequestPattern pattern) {
         String response = pattern.getUrl();
         if (response == null) {
             response = pattern.getUrlPath();
@@ -145,10 +157,6 @@ public class RequestPatternMatcher {
                 response = pattern.getUrlPattern();
                 if (response == null) {
                     response = pattern.getUrlPathPattern();
-                    if (response == null) {
-                        throw new SystemError(
-                            "Received Request pattern without proper URL to match");
-                    }
                 }
             }
         }
@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.client.RemoteMappingBuilder;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+/**
+ * Static content served by the mock server, like generated documentation.
+ * The gzip compressed variant and the validators of the content are
+ * computed once, after which the asset is served by stubs without any work
+ * per request.
+ */
+public class StaticAsset {
+
+    private final byte[] content;
+
+    private final String contentType;
+
+    /*
+     * Gzip compressed content, null when not worth compressing
+     */
+    private final byte[] gzip;
+
+    private final String etag;
+
+    private final String gzipEtag;
+
+    private final String lastModified;
+
+    /**
+     * Constructor
+     *
+     * @param content
+     *            Content of asset
+     * @param contentType
+     *            Media type of content
+     */
+    public StaticAsset(byte[] content, String contentType) {
+        this.content = content;
+        this.contentType = contentType;
+        this.gzip = ContentEncoding.gzip(content);
+        this.etag = ConditionalRequests.etag(content);
+        this.gzipEtag = gzip != null ? ConditionalRequests.etag(etag,
+            ContentEncoding.GZIP) : null;
+        this.lastModified = ConditionalRequests.httpDate(System
+            .currentTimeMillis());
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Returns stubs serving asset on GET requests for URL, in order of
+     * installation. The gzip variant is served to requests accepting gzip,
+     * requests with `If-None-Match` containing the entity tag of the asset
+     * get `304 Not Modified`. WireMock prefers the most recently added stub,
+     * so the more specific stubs come last.
+     */
+    public List<RemoteMappingBuilder> stubs(String url) {
+        List<RemoteMappingBuilder> stubs = new ArrayList<>(4);
+        stubs.add(get(urlEqualTo(url)).willReturn(
+            response(HttpStatus.SC_OK, etag).withBody(content)));
+
+        if (gzip != null) {
+            stubs.add(get(urlEqualTo(url)).withHeader(
+                ContentEncoding.ACCEPT_ENCODING,
+                matching(ContentEncoding.ACCEPTS_GZIP)).willReturn(
+                response(HttpStatus.SC_OK, gzipEtag).withHeader(
+                    ContentEncoding.CONTENT_ENCODING, ContentEncoding.GZIP)
+                    .withBody(gzip)));
+        }
+
+        stubs.add(notModified(url, etag));
+        if (gzip != null) {
+            stubs.add(notModified(url, gzipEtag));
+        }
+        return stubs;
+    }
+
+    private RemoteMappingBuilder notModified(String url, String etag) {
+        return get(urlEqualTo(url)).withHeader(HttpHeaders.IF_NONE_MATCH,
+            matching(".*" + Pattern.quote(etag) + ".*")).willReturn(
+            response(HttpStatus.SC_NOT_MODIFIED, etag));
+    }
+
+    private ResponseDefinitionBuilder response(int status, String etag) {
+        ResponseDefinitionBuilder response = aResponse().withStatus(status)
+            .withHeader(HttpHeaders.CONTENT_TYPE, contentType)
+            .withHeader(HttpHeaders.ETAG, etag)
+            .withHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (gzip != null) {
+            response.withHeader(ContentEncoding.VARY,
+                ContentEncoding.ACCEPT_ENCODING);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import org.raml.model.Action;
+import org.raml.model.ActionType;
+import org.raml.model.MimeType;
+import org.raml.model.Raml;
+import org.raml.model.Resource;
+import org.raml.model.Response;
+import org.uniknow.agiledev.docMockRest.ConditionalRequests;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Table of the example responses of a RAML specification by resource,
+ * action, status code and media type, built in a single pass over the
+ * specification.
+ *
+ * One stub is created per action. The example returned for a request is
+ * looked up by the status code requested through the `X-Mock-Status` header
+ * or `__status` query parameter, the first successful status code of the
+ * action otherwise, and by the media types accepted by the request.
+ */
+class ExampleResponses {
+
+    /**
+     * Header selecting status code of response
+     */
+    static final String STATUS_HEADER = "X-Mock-Status";
+
+    /**
+     * Query parameter selecting status code of response
+     */
+    static final String STATUS_PARAMETER = "__status";
+
+    /**
+     * Transformer parameter identifying the action of a stub
+     */
+    static final String ACTION = "ramlAction";
+
+    /*
+     * Actions having examples by key
+     */
+    private final Map<String, ExampleAction> actions = new LinkedHashMap<>();
+
+    ExampleResponses(Raml specification) {
+        add(specification.getResources().values());
+    }
+
+    private void add(Collection<Resource> resources) {
+        for (Resource resource : resources) {
+            for (Map.Entry<ActionType, Action> action : resource.getActions()
+                .entrySet()) {
+                ExampleAction examples = new ExampleAction(resource,
+                    action.getKey(), action.getValue());
+                if (examples.defaultStatus != null) {
+                    actions.put(examples.getKey(), examples);
+                }
+            }
+            add(resource.getResources().values());
+        }
+    }
+
+    /**
+     * Returns actions having at least one example response
+     */
+    Collection<ExampleAction> getActions() {
+        return Collections.unmodifiableCollection(actions.values());
+    }
+
+    /**
+     * Returns example response for request
+     *
+     * @param action
+     *            Key of action to which request has been matched
+     * @return example or null when action has no example for the requested
+     *         status code and media type
+     */
+    Example select(Request request, String action) {
+        ExampleAction examples = actions.get(action);
+        if (examples == null) {
+            return null;
+        }
+
+        String status = null;
+        HttpHeader header = request.header(STATUS_HEADER);
+        if (header != null && header.isPresent()) {
+            status = header.firstValue();
+        } else {
+            QueryParameter parameter = request
+                .queryParameter(STATUS_PARAMETER);
+            if (parameter != null && parameter.isPresent()) {
+                status = parameter.firstValue();
+            }
+        }
+
+        HttpHeader accept = request.header("Accept");
+        return examples.select(status, accept != null && accept.isPresent()
+            ? accept.firstValue() : null);
+    }
+
+    /**
+     * Example responses of an action by status code and media type
+     */
+    static class ExampleAction {
+        private final String uri;
+        private final ActionType type;
+
+        private final Map<String, Map<String, Example>> statuses =
+            new HashMap<>();
+
+        /*
+         * Status code returned when none is requested, null when the action
+         * has no examples
+         */
+        private String defaultStatus;
+
+        private ExampleAction(Resource resource, ActionType type,
+            Action action) {
+            this.uri = resource.getUri();
+            this.type = type;
+
+            if (action.getResponses() != null) {
+                for (Map.Entry<String, Response> response : action
+                    .getResponses().entrySet()) {
+                    if (response.getValue().hasBody()) {
+                        add(response.getKey(), response.getValue().getBody());
+                    }
+                }
+            }
+
+            // Example of GET request body served as response when the
+            // responses have none
+            if (defaultStatus == null && type == ActionType.GET
+                && action.hasBody()) {
+                add("200", action.getBody());
+            }
+        }
+
+        private void add(String status, Map<String, MimeType> bodies) {
+            Map<String, Example> examples = new LinkedHashMap<>();
+            for (Map.Entry<String, MimeType> body : bodies.entrySet()) {
+                if (body.getValue().getExample() != null) {
+                    examples.put(body.getKey(), new Example(Integer
+                        .parseInt(status), body.getKey(), body.getValue()
+                        .getExample()));
+                }
+            }
+            if (examples.isEmpty()) {
+                return;
+            }
+
+            statuses.put(status, examples);
+            if (defaultStatus == null
+                || isPreferred(status, defaultStatus)) {
+                defaultStatus = status;
+            }
+        }
+
+        /**
+         * Returns whether status is preferred over other as default, the
+         * lowest successful status code is preferred
+         */
+        private static boolean isPreferred(String status, String other) {
+            boolean successful = status.startsWith("2");
+            if (successful != other.startsWith("2")) {
+                return successful;
+            }
+            return status.compareTo(other) < 0;
+        }
+
+        /**
+         * Returns key identifying action, like `GET /users/{id}`
+         */
+        String getKey() {
+            return type.name() + " " + uri;
+        }
+
+        String getUri() {
+            return uri;
+        }
+
+        ActionType getType() {
+            return type;
+        }
+
+        /**
+         * Returns example returned when no status code is requested and all
+         * media types are accepted
+         */
+        Example getDefault() {
+            return select(null, null);
+        }
+
+        /**
+         * Returns example for status code and accepted media types
+         *
+         * @param status
+         *            Requested status code, null for default status code
+         * @param accept
+         *            Value of Accept header, null if all media types are
+         *            accepted
+         */
+        Example select(String status, String accept) {
+            Map<String, Example> examples = statuses
+                .get(status != null ? status : defaultStatus);
+            if (examples == null) {
+                return null;
+            }
+            if (accept != null) {
+                for (Example example : examples.values()) {
+                    if (accept.contains(example.mediaType)) {
+                        return example;
+                    }
+                }
+            }
+            return examples.values().iterator().next();
+        }
+    }
+
+    /**
+     * Example response, encoded once
+     */
+    static class Example {
+        private final int status;
+        private final String mediaType;
+        private final byte[] content;
+        private final String etag;
+
+        private Example(int status, String mediaType, String example) {
+            this.status = status;
+            this.mediaType = mediaType;
+            this.content = example.getBytes(StandardCharsets.UTF_8);
+            this.etag = ConditionalRequests.etag(content);
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getMediaType() {
+            return mediaType;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+    }
+}
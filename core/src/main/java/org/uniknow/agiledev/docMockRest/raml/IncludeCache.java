@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.raml.parser.loader.FileResourceLoader;
+import org.raml.parser.loader.ResourceLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Loader of the files included by a RAML specification, keeping their
+ * content in memory by path and modification time.
+ *
+ * The includes of a specification are read concurrently before it is parsed,
+ * the parser itself resolves them one by one from memory. Content is kept
+ * for as long as the loader is used, a specification parsed again with the
+ * same loader only reads the includes that changed.
+ */
+class IncludeCache implements ResourceLoader {
+
+    private final static Logger LOG = LoggerFactory
+        .getLogger(IncludeCache.class);
+
+    /*
+     * Number of threads reading includes
+     */
+    static final int THREADS = 4;
+
+    private static final Pattern INCLUDE = Pattern
+        .compile("!include\\s+([^\\s#]+)");
+
+    /*
+     * Content of included files by path
+     */
+    private final ConcurrentMap<Path, Content> contents =
+        new ConcurrentHashMap<>();
+
+    private final Path directory;
+
+    /*
+     * Loader of includes that are not a file, like includes on the classpath
+     */
+    private final ResourceLoader fallback;
+
+    /*
+     * Names of the includes fetched by the parser
+     */
+    private final Set<String> fetched = Collections
+        .newSetFromMap(new ConcurrentHashMap<>());
+
+    private final AtomicLong reads = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param directory
+     *            Directory to which includes are relative, the directory of
+     *            the specification
+     */
+    IncludeCache(File directory) {
+        this.directory = directory.getAbsoluteFile().toPath();
+        this.fallback = new FileResourceLoader(this.directory.toString());
+    }
+
+    @Override
+    public InputStream fetchResource(String resourceName) {
+        fetched.add(resourceName);
+        Path path = resolve(resourceName);
+        if (!Files.isRegularFile(path)) {
+            return fallback.fetchResource(resourceName);
+        }
+        try {
+            return new ByteArrayInputStream(read(path));
+        } catch (IOException error) {
+            LOG.warn("Unable to read include " + path, error);
+            return fallback.fetchResource(resourceName);
+        }
+    }
+
+    /**
+     * Reads the includes of the specification, and the includes of included
+     * RAML files, concurrently. Includes that can't be read are left to the
+     * parser to report.
+     *
+     * @param specification
+     *            Content of specification
+     */
+    void prefetch(byte[] specification) {
+        Set<String> seen = new HashSet<>();
+        List<String> names = includes("", specification, seen);
+        if (names.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            while (!names.isEmpty()) {
+                List<CompletableFuture<byte[]>> reading = new ArrayList<>();
+                for (String name : names) {
+                    reading.add(CompletableFuture.supplyAsync(
+                        () -> prefetch(name), executor));
+                }
+
+                // Includes of included RAML files are read next
+                List<String> next = new ArrayList<>();
+                for (int i = 0; i < names.size(); i++) {
+                    byte[] content = reading.get(i).join();
+                    if (content != null && isRaml(names.get(i))) {
+                        next.addAll(includes(names.get(i), content, seen));
+                    }
+                }
+                names = next;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.debug("Prefetched {} includes, {} read from disk", seen.size(),
+            reads.get());
+    }
+
+    /**
+     * Returns names of the includes fetched by the parser
+     */
+    Set<String> getFetched() {
+        return Collections.unmodifiableSet(fetched);
+    }
+
+    /**
+     * Returns number of includes read from disk instead of memory
+     */
+    long getReads() {
+        return reads.get();
+    }
+
+    /**
+     * Returns content of included file, read from disk when it changed since
+     * it was last read
+     */
+    byte[] read(Path path) throws IOException {
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Content content = contents.get(path);
+        if (content == null || content.modified != modified) {
+            content = new Content(modified, Files.readAllBytes(path));
+            contents.put(path, content);
+            reads.incrementAndGet();
+        }
+        return content.bytes;
+    }
+
+    /**
+     * Returns path of include, relative names are resolved against the
+     * directory of the specification like the parser does
+     */
+    Path resolve(String resourceName) {
+        return directory.resolve(resourceName.startsWith("/") ? resourceName
+            .substring(1) : resourceName).normalize();
+    }
+
+    private byte[] prefetch(String name) {
+        Path path = resolve(name);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return read(path);
+        } catch (IOException error) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns names of includes within content that have not been seen yet.
+     * Like the parser, names are relative to the including file.
+     */
+    private static List<String> includes(String including, byte[] content,
+        Set<String> seen) {
+        int separator = including.lastIndexOf('/');
+        String parent = separator < 0 ? "" : including.substring(0,
+            separator + 1);
+
+        List<String> names = new ArrayList<>();
+        Matcher matcher = INCLUDE.matcher(new String(content,
+            StandardCharsets.UTF_8));
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (name.contains(":")) {
+                // Includes by URL are not cached
+                continue;
+            }
+            if (!name.startsWith("/")) {
+                name = parent + name;
+            }
+            if (seen.add(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static boolean isRaml(String name) {
+        return name.endsWith(".raml") || name.endsWith(".yaml")
+            || name.endsWith(".yml");
+    }
+
+    /**
+     * Content of included file
+     */
+    private static class Content {
+        private final long modified;
+        private final byte[] bytes;
+
+        private Content(long modified, byte[] bytes) {
+            this.modified = modified;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.github.tomakehurst.wiremock.extension.ResponseTransformer;
 import com.github.tomakehurst.wiremock.http.ContentTypeHeader;
 import com.github.tomakehurst.wiremock.http.HttpHeader;
 import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.http.Response;
 import com.github.tomakehurst.wiremock.http.ResponseDefinition;
 import org.apache.http.HttpHeaders;
@@ -30,29 +31,42 @@ import org.raml.model.Raml;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uniknow.agiledev.dbc4java.Validated;
-import org.uniknow.agiledev.docMockRest.IoUtil;
+import org.uniknow.agiledev.docMockRest.ConditionalRequests;
+import org.uniknow.agiledev.docMockRest.ContentEncoding;
+import org.uniknow.agiledev.docMockRest.SystemError;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.core.MediaType;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Checks whether response for request is defined and it not returns default
  * response.
  */
 @Validated
-public class MockResponses extends ResponseTransformer {
+public class MockResponses extends ResponseTransformer implements Closeable {
 
     private final static Logger LOG = LoggerFactory
         .getLogger(MockResponses.class);
 
     private final String pathResponseFiles;
 
+    /*
+     * Content of response files, null when no response files are defined
+     */
+    private final ResponseFileStore responseFiles;
+
     @NotNull
     private final Raml specification;
 
+    /*
+     * Example responses of the specification
+     */
+    private final ExampleResponses examples;
+
     /**
      * Constructor
      * 
@@ -60,8 +74,53 @@ public class MockResponses extends ResponseTransformer {
      *            - Path to directory in which response files are defined.
      */
     public MockResponses(Raml specification, String responseFiles) {
+        this(specification, responseFiles,
+            ResponseFileStore.DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param responseFiles
+     *            - Path to directory in which response files are defined.
+     * @param cacheSize
+     *            - Maximum total size in bytes of response files kept in
+     *            memory.
+     */
+    public MockResponses(Raml specification, String responseFiles,
+        long cacheSize) {
+        this(specification, responseFiles, cacheSize,
+            ResponseFileStore.DEFAULT_LARGE_BODY_THRESHOLD);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param responseFiles
+     *            - Path to directory in which response files are defined.
+     * @param cacheSize
+     *            - Maximum total size in bytes of response files kept in
+     *            memory.
+     * @param largeBodyThreshold
+     *            - Size in bytes from which response files are only kept in
+     *            memory while requests are serving them.
+     */
+    public MockResponses(Raml specification, String responseFiles,
+        long cacheSize, long largeBodyThreshold) {
         this.specification = specification;
+        this.examples = new ExampleResponses(specification);
         pathResponseFiles = responseFiles;
+
+        if (responseFiles != null) {
+            try {
+                this.responseFiles = new ResponseFileStore(
+                    Paths.get(responseFiles), cacheSize, largeBodyThreshold);
+            } catch (IOException error) {
+                throw new SystemError(error);
+            }
+        } else {
+            this.responseFiles = null;
+        }
     }
 
     private String getExtensionResponseFile(Request request) {
@@ -185,61 +244,203 @@ public class MockResponses extends ResponseTransformer {
         return true;
     }
 
+    /**
+     * Returns path of request, without query string which may select the
+     * status code of the response
+     */
+    private static String path(Request request) {
+        String path = request.getUrl();
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return path;
+    }
+
     @Override
     public Response transform(Request request, Response response,
         FileSource fileSource, Parameters parameters) {
         LOG.debug("Processing request for '{}'", request.getUrl());
 
+        Object action = parameters != null ? parameters
+            .get(ExampleResponses.ACTION) : null;
+        if (action != null) {
+            ExampleResponses.Example example = examples.select(request,
+                action.toString());
+            if (example == null) {
+                return notFound(request, response);
+            }
+            response = example(response, example);
+        }
+
         if (pathResponseFiles != null) {
             // Determine extension of response file
             String responseExtenstion = getExtensionResponseFile(request);
 
             // Check whether response for specific request is defined
             Path pathResponseFile = Paths.get(pathResponseFiles,
-                request.getUrl(), "response." + responseExtenstion);
-            if (Files.exists(pathResponseFile)) {
-                LOG.debug("Response defined for '{}' : {}", request.getUrl(),
-                    pathResponseFile);
-                try {
-                    InputStream in = Files.newInputStream(pathResponseFile);
-                    String responseContent = IoUtil.convertStreamToString(in);
-
-                    return Response.Builder.like(response).but()
-                        .body(responseContent).build();
-
-                } catch (IOException error) {
-                    return Response.Builder
-                        .like(response)
-                        .but()
-                        .headers(
-                            new com.github.tomakehurst.wiremock.http.HttpHeaders(
-                                new HttpHeader(HttpHeaders.CONTENT_TYPE,
-                                    MediaType.TEXT_PLAIN)))
-                        .body(error.getMessage()).build();
+                path(request), "response." + responseExtenstion);
+            try {
+                ResponseFile responseFile = responseFiles.get(pathResponseFile);
+                if (responseFile != null) {
+                    LOG.debug("Response defined for '{}' : {}",
+                        request.getUrl(), pathResponseFile);
 
+                    return conditional(request,
+                        encode(request, response, responseFile));
                 }
+                LOG.debug("No response defined for '{}', {} file system "
+                    + "probes saved", request.getUrl(),
+                    responseFiles.getProbesSaved());
+            } catch (IOException error) {
+                return Response.Builder
+                    .like(response)
+                    .but()
+                    .headers(
+                        new com.github.tomakehurst.wiremock.http.HttpHeaders(
+                            new HttpHeader(HttpHeaders.CONTENT_TYPE,
+                                MediaType.TEXT_PLAIN)))
+                    .body(error.getMessage()).build();
             }
         }
 
         if (response.getBody() != null) {
-            return response;
+            return conditional(request, response);
         } else {
+            return notFound(request, response);
+        }
+
+    }
+
+    private Response notFound(Request request, Response response) {
+        return Response.Builder
+            .like(response)
+            .but()
+            .status(HttpStatus.SC_NOT_FOUND)
+            .headers(
+                new com.github.tomakehurst.wiremock.http.HttpHeaders(
+                    new HttpHeader(HttpHeaders.CONTENT_TYPE,
+                        MediaType.TEXT_PLAIN)))
+            .body("No mocked response found for " + request.getUrl())
+            .build();
+    }
+
+    /**
+     * Returns response containing example selected for request
+     */
+    private Response example(Response response,
+        ExampleResponses.Example example) {
+        HttpHeader lastModified = response.getHeaders().getHeader(
+            HttpHeaders.LAST_MODIFIED);
+        com.github.tomakehurst.wiremock.http.HttpHeaders headers =
+            new com.github.tomakehurst.wiremock.http.HttpHeaders(
+                new HttpHeader(HttpHeaders.CONTENT_TYPE, example
+                    .getMediaType()), new HttpHeader(HttpHeaders.ETAG,
+                    example.getEtag()));
+        if (lastModified.isPresent()) {
+            headers = headers.plus(lastModified);
+        }
+        return Response.Builder.like(response).but()
+            .status(example.getStatus()).headers(headers)
+            .body(example.getContent()).build();
+    }
+
+    /**
+     * Returns response containing response file, gzip compressed when
+     * accepted by the client.
+     */
+    private Response encode(Request request, Response response,
+        ResponseFile responseFile) {
+        com.github.tomakehurst.wiremock.http.HttpHeaders headers = response
+            .getHeaders().plus(
+                new HttpHeader(HttpHeaders.LAST_MODIFIED, responseFile
+                    .getLastModified()));
+        if (responseFile.getGzip() == null) {
             return Response.Builder
                 .like(response)
                 .but()
-                .status(HttpStatus.SC_NOT_FOUND)
                 .headers(
-                    new com.github.tomakehurst.wiremock.http.HttpHeaders(
-                        new HttpHeader(HttpHeaders.CONTENT_TYPE,
-                            MediaType.TEXT_PLAIN)))
-                .body("No mocked response found for " + request.getUrl())
-                .build();
+                    headers.plus(new HttpHeader(HttpHeaders.ETAG,
+                        responseFile.getEtag())))
+                .body(responseFile.getContent()).build();
+        }
+
+        headers = headers.plus(new HttpHeader(ContentEncoding.VARY,
+            ContentEncoding.ACCEPT_ENCODING));
+        if (ContentEncoding.acceptsGzip(request
+            .getHeader(ContentEncoding.ACCEPT_ENCODING))) {
+            return Response.Builder
+                .like(response)
+                .but()
+                .headers(
+                    headers.plus(new HttpHeader(
+                        ContentEncoding.CONTENT_ENCODING,
+                        ContentEncoding.GZIP), new HttpHeader(
+                        HttpHeaders.ETAG, responseFile.getGzipEtag())))
+                .body(responseFile.getGzip()).build();
+        }
+        return Response.Builder
+            .like(response)
+            .but()
+            .headers(
+                headers.plus(new HttpHeader(HttpHeaders.ETAG, responseFile
+                    .getEtag()))).body(responseFile.getContent()).build();
+    }
+
+    /**
+     * Returns `304 Not Modified` without body when the successful response
+     * to a GET or HEAD request matches the conditional headers of the
+     * request, otherwise the response itself.
+     */
+    private Response conditional(Request request, Response response) {
+        if (response.getStatus() != HttpStatus.SC_OK
+            || (request.getMethod() != RequestMethod.GET && request
+                .getMethod() != RequestMethod.HEAD)) {
+            return response;
         }
 
+        HttpHeader etag = response.getHeaders().getHeader(HttpHeaders.ETAG);
+        HttpHeader lastModified = response.getHeaders().getHeader(
+            HttpHeaders.LAST_MODIFIED);
+        if (ConditionalRequests.notModified(
+            request.getHeader(HttpHeaders.IF_NONE_MATCH),
+            request.getHeader(HttpHeaders.IF_MODIFIED_SINCE),
+            etag.isPresent() ? etag.firstValue() : null,
+            lastModified.isPresent() ? lastModified.firstValue() : null)) {
+            return Response.Builder.like(response).but()
+                .status(HttpStatus.SC_NOT_MODIFIED).body(new byte[0])
+                .build();
+        }
+        return response;
     }
 
     @Override
     public String getName() {
         return "mock-responses";
     }
+
+    /**
+     * Returns example responses of the specification
+     */
+    ExampleResponses getExamples() {
+        return examples;
+    }
+
+    /**
+     * Returns number of requests for which the absence of a response file
+     * was known without probing the file system
+     */
+    public long getProbesSaved() {
+        return responseFiles != null ? responseFiles.getProbesSaved() : 0;
+    }
+
+    /**
+     * Stops watching the response files
+     */
+    @Override
+    public void close() throws IOException {
+        if (responseFiles != null) {
+            responseFiles.close();
+        }
+    }
 }
@@ -18,6 +18,8 @@ package org.uniknow.agiledev.docMockRest.raml;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.raml.model.*;
@@ -30,6 +32,11 @@ import org.uniknow.agiledev.docMockRest.IoUtil;
 import javax.validation.constraints.NotNull;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Transforms RAML specification into HTML page.
@@ -40,7 +47,18 @@ public class Raml2HtmlRenderer {
     private final static Logger LOG = LoggerFactory
         .getLogger(Raml2HtmlRenderer.class);
 
-    private final Handlebars handlebars;
+    /*
+     * Handlebars shared by all renderers, compiled templates refer to its
+     * helpers
+     */
+    private final static Handlebars HANDLEBARS = HandlebarsFactory
+        .defaultHandlebars();
+
+    /*
+     * Compiled templates by name of template file
+     */
+    private final static ConcurrentMap<String, CompiledTemplate> TEMPLATES =
+        new ConcurrentHashMap<>();
 
     /**
      * Name of default template file.
@@ -60,7 +78,6 @@ public class Raml2HtmlRenderer {
      *            specification on which generated HTML report is based
      */
     public Raml2HtmlRenderer(Raml raml) {
-        this.handlebars = HandlebarsFactory.defaultHandlebars();
         this.raml = raml;
     }
 
@@ -91,27 +108,80 @@ public class Raml2HtmlRenderer {
      */
     public String render(@NotNull @NotEmpty @NotBlank String templateFile)
         throws FileNotFoundException {
-        return render(IoUtil.contentFromFile(templateFile), raml);
+        StringWriter writer = new StringWriter();
+        try {
+            renderTo(templateFile, writer);
+        } catch (FileNotFoundException error) {
+            throw error;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return writer.toString();
     }
 
     /**
-     * Renders the RAML definition using the specified template file.
+     * Renders RAML specification into HTML written to writer
+     * 
+     * @param writer
+     *            Writer to which HTML page is written
+     * 
+     * @throws FileNotFoundException
+     *             if template used to render RAML specification could not be
+     *             found.
+     */
+    public void renderTo(@NotNull Writer writer) throws IOException {
+        renderTo(DEFAULT_TEMPLATE, writer);
+    }
+
+    /**
+     * Renders RAML specification into HTML written to writer
      * 
      * @param templateFile
-     *            template file that will be used to render the RAML definition.
-     * @param raml
-     *            RAML definition.
+     *            Template that will be used to render RAML specification
+     * @param writer
+     *            Writer to which HTML page is written
      * 
-     * @return HTML documentation RAML definition.
+     * @throws FileNotFoundException
+     *             if template used to render RAML specification could not be
+     *             found.
      */
-    private String render(String templateFile, Object raml) {
-        LOG.debug("Rendering RAML specification with template {}", templateFile);
-        try {
-            Template template = handlebars.compile(new StringTemplateSource(
-                "raml_template", templateFile));
-            return template.apply(raml);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    public void renderTo(@NotNull @NotEmpty @NotBlank String templateFile,
+        @NotNull Writer writer) throws IOException {
+        LOG.debug("Rendering RAML specification with template {}",
+            templateFile);
+        template(templateFile).apply(raml, writer);
+    }
+
+    /**
+     * Returns compiled template, compiled again only when the content of the
+     * template file changed.
+     */
+    private Template template(String templateFile) throws IOException {
+        String content = IoUtil.contentFromFile(templateFile);
+        HashCode hash = Hashing.murmur3_128().hashString(content,
+            StandardCharsets.UTF_8);
+
+        CompiledTemplate compiled = TEMPLATES.get(templateFile);
+        if (compiled == null || !compiled.hash.equals(hash)) {
+            LOG.debug("Compiling template {}", templateFile);
+            compiled = new CompiledTemplate(hash,
+                HANDLEBARS.compile(new StringTemplateSource(templateFile,
+                    content)));
+            TEMPLATES.put(templateFile, compiled);
+        }
+        return compiled.template;
+    }
+
+    /**
+     * Template compiled from template file with content hash
+     */
+    private static class CompiledTemplate {
+        private final HashCode hash;
+        private final Template template;
+
+        private CompiledTemplate(HashCode hash, Template template) {
+            this.hash = hash;
+            this.template = template;
         }
     }
 
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.uniknow.agiledev.docMockRest.ContainerThreads;
+import org.uniknow.agiledev.docMockRest.RequestJournal;
+
+/**
+ * Optional settings of a Mock Server based on RAML specification
+ */
+public class RamlConfig {
+    public static RamlConfig create() {
+        return new RamlConfig();
+    }
+
+    /**
+     * Sets maximum total size in bytes of response files kept in memory, by
+     * default 64 MB.
+     */
+    public RamlConfig setResponseCacheSize(long responseCacheSize) {
+        this.responseCacheSize = responseCacheSize;
+        return this;
+    }
+
+    /**
+     * Sets size in bytes from which response files are only kept in memory
+     * while requests are serving them, by default 8 MB.
+     */
+    public RamlConfig setLargeBodyThreshold(long largeBodyThreshold) {
+        this.largeBodyThreshold = largeBodyThreshold;
+        return this;
+    }
+
+    /**
+     * Sets file in which the parsed specification is kept. When the
+     * specification and its includes did not change the server starts from
+     * this file instead of parsing the specification. By default the
+     * specification is always parsed.
+     */
+    public RamlConfig setSnapshotLocation(String snapshotLocation) {
+        this.snapshotLocation = snapshotLocation;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of threads handling requests, which bounds the
+     * number of delayed requests in flight. Threads are started on demand.
+     */
+    public RamlConfig setContainerThreads(int containerThreads) {
+        this.containerThreads = containerThreads;
+        return this;
+    }
+
+    /**
+     * Sets journal recording the requests served, by default a journal
+     * retaining the last `RequestJournal.DEFAULT_CAPACITY` requests.
+     */
+    public RamlConfig setRequestJournal(RequestJournal requestJournal) {
+        this.requestJournal = requestJournal;
+        return this;
+    }
+
+    private long responseCacheSize = ResponseFileStore.DEFAULT_CACHE_SIZE;
+    private long largeBodyThreshold =
+        ResponseFileStore.DEFAULT_LARGE_BODY_THRESHOLD;
+    private String snapshotLocation;
+    private int containerThreads = ContainerThreads.DEFAULT;
+    private RequestJournal requestJournal;
+
+    long getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    long getLargeBodyThreshold() {
+        return largeBodyThreshold;
+    }
+
+    String getSnapshotLocation() {
+        return snapshotLocation;
+    }
+
+    int getContainerThreads() {
+        return containerThreads;
+    }
+
+    RequestJournal getRequestJournal() {
+        return requestJournal != null ? requestJournal : RequestJournal
+            .create();
+    }
+}
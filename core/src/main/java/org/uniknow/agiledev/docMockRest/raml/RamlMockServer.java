@@ -19,10 +19,8 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 
 import java.io.*;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import com.github.tomakehurst.wiremock.WireMockServer;
 
@@ -30,14 +28,16 @@ import com.github.tomakehurst.wiremock.client.RemoteMappingBuilder;
 import org.apache.http.HttpHeaders;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
-import org.raml.model.ActionType;
 import org.raml.model.Raml;
-import org.raml.model.Resource;
-import org.raml.parser.loader.FileResourceLoader;
 import org.raml.parser.visitor.RamlDocumentBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uniknow.agiledev.dbc4java.Validated;
+import org.uniknow.agiledev.docMockRest.ConditionalRequests;
+import org.uniknow.agiledev.docMockRest.ContainerThreads;
+import org.uniknow.agiledev.docMockRest.RequestJournal;
+import org.uniknow.agiledev.docMockRest.StaticAsset;
+import org.uniknow.agiledev.docMockRest.SystemError;
 
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -51,6 +51,38 @@ public class RamlMockServer {
     private final static Logger log = LoggerFactory
         .getLogger(RamlMockServer.class);
 
+    /*
+     * Maximum total size in bytes of response files kept in memory
+     */
+    private long responseCacheSize = ResponseFileStore.DEFAULT_CACHE_SIZE;
+
+    /*
+     * Size in bytes from which response files are considered large
+     */
+    private long largeBodyThreshold =
+        ResponseFileStore.DEFAULT_LARGE_BODY_THRESHOLD;
+
+    /*
+     * File in which the parsed specification is kept, null if none
+     */
+    private String snapshotLocation;
+
+    /*
+     * Maximum number of threads handling requests
+     */
+    private int containerThreads = ContainerThreads.DEFAULT;
+
+    /*
+     * Requests served by the server
+     */
+    private RequestJournal requestJournal;
+
+    /*
+     * Last-Modified of the example bodies, the time they were loaded
+     */
+    private final String examplesLoaded = ConditionalRequests
+        .httpDate(System.currentTimeMillis());
+
     /**
      * Default constructor for testing purposes only
      */
@@ -72,6 +104,31 @@ public class RamlMockServer {
      */
     public RamlMockServer(String specificationFile, int port,
         String responseFiles) throws FileNotFoundException {
+        this(specificationFile, port, responseFiles, RamlConfig.create());
+    }
+
+    /**
+     * Constructor Mock Server
+     * 
+     * @param specificationFile
+     *            Location of file containing RAML definition on which mocks
+     *            will be based
+     * @param port
+     *            Port on which mock server will be reachable.
+     * @param responseFiles
+     *            Location of files containing responses for mocked resources
+     * @param config
+     *            Optional settings of the mock server
+     * @throws FileNotFoundException
+     *             if specification file doesn't exist
+     */
+    public RamlMockServer(String specificationFile, int port,
+        String responseFiles, RamlConfig config) throws FileNotFoundException {
+        this.requestJournal = config.getRequestJournal();
+        this.containerThreads = config.getContainerThreads();
+        this.responseCacheSize = config.getResponseCacheSize();
+        this.largeBodyThreshold = config.getLargeBodyThreshold();
+        this.snapshotLocation = config.getSnapshotLocation();
         log.info("Starting MockServer using RAML file: {} on port: {}",
             specificationFile, port);
 
@@ -80,6 +137,14 @@ public class RamlMockServer {
         createMockServer(raml, port, responseFiles);
     }
 
+    /**
+     * Returns journal of the requests served, to be used for verification
+     * instead of the request journal of WireMock which is disabled.
+     */
+    public RequestJournal getRequestJournal() {
+        return requestJournal;
+    }
+
     /**
      * Generates HTML documentation for specified RAML file.
      * 
@@ -108,32 +173,60 @@ public class RamlMockServer {
     void createMockServer(@NotNull Raml specification, @Min(0) int port,
         @NotNull @NotEmpty @NotBlank String responseFiles)
         throws FileNotFoundException {
-        WireMockServer wireMockServer = new WireMockServer(wireMockConfig()
-            .port(port).withRootDirectory(responseFiles)
-            .extensions(new MockResponses(specification, responseFiles)));
+        MockResponses mockResponses = new MockResponses(specification,
+            responseFiles, responseCacheSize, largeBodyThreshold);
+        // Requests are recorded by bounded journal instead of WireMock
+        if (requestJournal == null) {
+            requestJournal = RequestJournal.create();
+        }
+        requestJournal.attach(null);
+        WireMockServer wireMockServer = new WireMockServer(ContainerThreads
+            .apply(wireMockConfig().port(port), containerThreads)
+            .disableRequestJournal().withRootDirectory(responseFiles)
+            .extensions(mockResponses));
+        wireMockServer.addMockServiceRequestListener(requestJournal);
 
         wireMockServer.start();
 
-        // Create stub returning info regarding mocked interfaces.
-        wireMockServer.stubFor(get(urlEqualTo("/info")).willReturn(
-            aResponse().withHeader(HttpHeaders.CONTENT_TYPE,
-                MediaType.TEXT_HTML).withBody(
-                new Raml2HtmlRenderer(specification).render())));
-
-        final Collection<Resource> resources = specification.getResources()
-            .values();
+        // Create stubs returning info regarding mocked interfaces.
+        for (RemoteMappingBuilder stub : documentation(specification).stubs(
+            "/info")) {
+            wireMockServer.stubFor(stub);
+        }
 
-        stubResources(wireMockServer, resources);
+        stubResources(wireMockServer, mockResponses.getExamples());
 
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
                 log.info("Shutting down the mock server");
                 wireMockServer.shutdown();
+                try {
+                    mockResponses.close();
+                } catch (IOException error) {
+                    log.warn("Unable to stop watching response files", error);
+                }
             }
         });
     }
 
+    /**
+     * Returns HTML documentation of specification, rendered once.
+     */
+    private StaticAsset documentation(Raml specification)
+        throws FileNotFoundException {
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(html,
+            StandardCharsets.UTF_8)) {
+            new Raml2HtmlRenderer(specification).renderTo(writer);
+        } catch (FileNotFoundException error) {
+            throw error;
+        } catch (IOException error) {
+            throw new SystemError(error);
+        }
+        return new StaticAsset(html.toByteArray(), MediaType.TEXT_HTML);
+    }
+
     /**
      * Returns REST API specification.
      * 
@@ -161,9 +254,39 @@ public class RamlMockServer {
                 + "' is a directory.");
         }
 
-        Raml raml = new RamlDocumentBuilder(new FileResourceLoader(file
-            .getParentFile().getAbsolutePath())).build(
-            new FileInputStream(file), "");
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException error) {
+            throw new SystemError(error);
+        }
+
+        // Includes are resolved from memory, read concurrently upfront
+        IncludeCache includes = new IncludeCache(file.getAbsoluteFile()
+            .getParentFile());
+        Raml raml = null;
+        if (snapshotLocation != null) {
+            raml = RamlSnapshot.read(new File(snapshotLocation), content,
+                includes);
+        }
+        if (raml == null) {
+            includes.prefetch(content);
+            raml = new RamlDocumentBuilder(includes).build(
+                new ByteArrayInputStream(content), "");
+            if (snapshotLocation != null) {
+                log.info("Writing snapshot {}", snapshotLocation);
+                try {
+                    RamlSnapshot.write(new File(snapshotLocation), content,
+                        includes, raml);
+                } catch (IOException error) {
+                    log.warn("Unable to write snapshot " + snapshotLocation,
+                        error);
+                }
+            }
+        } else {
+            log.info("Loaded specification from snapshot {}",
+                snapshotLocation);
+        }
         log.info("Loaded specifications for REST API '{}' version '{}'",
             raml.getTitle(), raml.getVersion());
 
@@ -171,142 +294,44 @@ public class RamlMockServer {
     }
 
     /**
-     * Stub the passed resources recursively.
+     * Stubs the actions of the specification that have example responses.
      * 
      * @param wireMockServer
      *            Server that will be used to mock the resources
-     * @param resources
-     *            Resources that will be mocked
+     * @param examples
+     *            Example responses of the specification
      */
     final void stubResources(@NotNull WireMockServer wireMockServer,
-        @NotNull Collection<Resource> resources) {
-        for (Resource resource : resources) {
-            log.info("stub {}", resource.getUri());
-
-            if (hasAJsonBodyExample(resource)) {
-                stubJsonBodyExample(wireMockServer, resource);
-            }
-
-            List<String> statusCodes = statusCodesThatHasExampleBody(resource,
-                ActionType.GET);
-            if (!statusCodes.isEmpty()) {
-                // only one response per resource is possible
-                stubJsonBodyExampleWithCode(wireMockServer, resource,
-                    statusCodes.get(0), ActionType.GET);
-            }
-
-            List<String> statusCodesPost = statusCodesThatHasExampleBody(
-                resource, ActionType.POST);
-            if (!statusCodesPost.isEmpty()) {
-                // only one response per resource is possible
-                stubJsonBodyExampleWithCode(wireMockServer, resource,
-                    statusCodesPost.get(0), ActionType.POST);
-            }
-
-            if (!resource.getResources().isEmpty()) {
-                Collection<Resource> childResources = resource.getResources()
-                    .values();
-                stubResources(wireMockServer, childResources);
-            }
+        @NotNull ExampleResponses examples) {
+        for (ExampleResponses.ExampleAction action : examples.getActions()) {
+            log.info("stub [{}]{}", action.getType(), action.getUri());
+
+            // Query string may select status code of response
+            String resourceMatch = replaceResourceIdWithAnyMatcher(action
+                .getUri()) + "(\\?.*)?";
+            ExampleResponses.Example example = action.getDefault();
+            wireMockServer.stubFor(request(action.getType().name(),
+                urlMatching(resourceMatch)).willReturn(
+                aResponse()
+                    .withHeader(HttpHeaders.CONTENT_TYPE,
+                        example.getMediaType())
+                    .withHeader(HttpHeaders.ETAG, example.getEtag())
+                    .withHeader(HttpHeaders.LAST_MODIFIED, examplesLoaded)
+                    .withStatus(example.getStatus())
+                    .withBody(example.getContent())
+                    .withTransformerParameter(ExampleResponses.ACTION,
+                        action.getKey())));
         }
     }
 
-    // TODO: now only get and post on resource with responses for status codes
-    // in RAML
-    private void stubJsonBodyExampleWithCode(WireMockServer wireMockServer,
-        Resource resource, String statusCode, ActionType actionType) {
-        String resourceMatch = replaceResourceIdWithAnyMatcher(resource);
-
-        // TODO: Requires that content-type header is set, should check whether
-        // that can be defined in RAML file (mediaTypeExtension).
-        RemoteMappingBuilder urlMatcher;
-        switch (actionType) {
-
-        case GET:
-            urlMatcher = get(urlMatching(resourceMatch));
-            break;
-
-        case POST:
-            urlMatcher = post(urlMatching(resourceMatch));
-            break;
-
-        default:
-            log.warn("[" + actionType + "]" + resourceMatch
-                + " is not supported yet");
-            return;
-        }
-
-        // Create mock for resource
-        wireMockServer.stubFor(urlMatcher.withHeader(HttpHeaders.CONTENT_TYPE,
-            equalTo("application/json")).willReturn(
-            aResponse()
-                .withHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                .withStatus(Integer.parseInt(statusCode))
-                .withBody(
-                    resource.getAction(actionType).getResponses()
-                        .get(statusCode).getBody().get("application/json")
-                        .getExample())));
-    }
-
-    // TODO: now only get on resource without responses for status codes in RAML
-    private void stubJsonBodyExample(WireMockServer wireMockServer,
-        Resource resource) {
-        // String resourceMatch = replaceResourceIdWithAnyMatcher(resource);
-        // log.debug("stubJsonBodyExample:{} resourceMatch: {}:",
-        // resource.getUri(), resourceMatch);
-
-        log.debug("stub [GET]" + resource.getUri());
-        wireMockServer.stubFor(get(urlEqualTo(resource.getUri())).withHeader(
-            HttpHeaders.CONTENT_TYPE, equalTo("application/json")).willReturn(
-            aResponse()
-                .withHeader(HttpHeaders.CONTENT_TYPE, "application/json")
-                .withBody(
-                    resource.getAction(ActionType.GET).getBody()
-                        .get("application/json").getExample())));
-    }
-
     /**
      * Replaces {id} within URI of resource by id
      * 
-     * @param resource
+     * @param uri
      * @return
      */
-    private String replaceResourceIdWithAnyMatcher(Resource resource) {
-        return resource.getUri().replaceAll("\\{[0-9a-zA-Z]*\\}",
+    private String replaceResourceIdWithAnyMatcher(String uri) {
+        return uri.replaceAll("\\{[0-9a-zA-Z]*\\}",
             "[0-9a-zA-Z.]*");
     }
-
-    private List<String> statusCodesThatHasExampleBody(Resource resource, ActionType actionType) {
-
-        List<String> statusCodes = Arrays.asList("200", "201", "202", "204", "400", "401", "403", "404", "405", "409");
-
-        return statusCodes.stream().filter(s -> hasAJsonBodyExampleByStatusCode(resource, s, actionType))
-                .peek(p -> log.debug("StatusCode match with example body: {}", p))
-                .collect(
-                        Collectors.toList());
-    }
-
-    private boolean hasAJsonBodyExampleByStatusCode(Resource resource,
-        String statusCode, ActionType actionType) {
-        return resource.getAction(actionType) != null
-            && !resource.getAction(actionType).hasBody()
-            && resource.getAction(actionType).getResponses() != null
-            && resource.getAction(actionType).getResponses()
-                .containsKey(statusCode)
-            && resource.getAction(actionType).getResponses().get(statusCode)
-                .hasBody()
-            && resource.getAction(actionType).getResponses().get(statusCode)
-                .getBody().containsKey("application/json")
-            && resource.getAction(actionType).getResponses().get(statusCode)
-                .getBody().get("application/json").getExample() != null;
-    }
-
-    private boolean hasAJsonBodyExample(Resource resource) {
-        return resource.getAction(ActionType.GET) != null
-            && resource.getAction(ActionType.GET).hasBody()
-            && resource.getAction(ActionType.GET).getBody()
-                .containsKey("application/json")
-            && resource.getAction(ActionType.GET).getBody()
-                .get("application/json").getExample() != null;
-    }
 }
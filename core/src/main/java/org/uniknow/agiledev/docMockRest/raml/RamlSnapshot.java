@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.raml.model.Raml;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of a parsed RAML specification, allowing a mock server to start
+ * without parsing the specification again.
+ *
+ * The snapshot is keyed by a hash of the content of the specification and
+ * the files it includes. A snapshot with a different key is ignored.
+ */
+class RamlSnapshot {
+
+    private final static Logger LOG = LoggerFactory
+        .getLogger(RamlSnapshot.class);
+
+    /*
+     * Identifies file as snapshot ("RAML")
+     */
+    private static final int MAGIC = 0x52414D4C;
+
+    /*
+     * Version of the snapshot format, snapshots of other versions are ignored
+     */
+    private static final int VERSION = 1;
+
+    private RamlSnapshot() {
+    }
+
+    /**
+     * Returns key of snapshot for specified specification and includes.
+     *
+     * @param specification
+     *            Content of specification
+     * @param includes
+     *            Loader of the includes of the specification
+     * @param names
+     *            Names of the includes of the specification
+     */
+    static String key(byte[] specification, IncludeCache includes,
+        Collection<String> names) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(VERSION);
+        hasher.putInt(specification.length).putBytes(specification);
+
+        for (String name : new TreeSet<>(names)) {
+            hasher.putString(name, StandardCharsets.UTF_8);
+            Path path = includes.resolve(name);
+            if (Files.isRegularFile(path)) {
+                byte[] content = includes.read(path);
+                hasher.putInt(content.length).putBytes(content);
+            } else {
+                hasher.putInt(-1);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Reads snapshot from file.
+     *
+     * @param file
+     *            File containing snapshot
+     * @param specification
+     *            Content of specification
+     * @param includes
+     *            Loader of the includes of the specification
+     * @return parsed specification or null when file does not exist, is not
+     *         readable or has been created for other content
+     */
+    static Raml read(File file, byte[] specification, IncludeCache includes) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+            new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOG.info("Snapshot {} is outdated", file);
+                return null;
+            }
+
+            List<String> names = new ArrayList<>();
+            for (int count = in.readInt(); count > 0; count--) {
+                names.add(in.readUTF());
+            }
+            if (!key(specification, includes, names).equals(in.readUTF())) {
+                LOG.info("Snapshot {} is outdated", file);
+                return null;
+            }
+
+            return (Raml) new ObjectInputStream(in).readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException
+            error) {
+            LOG.warn("Unable to read snapshot " + file, error);
+            return null;
+        }
+    }
+
+    /**
+     * Writes snapshot to file. The snapshot is written to a temporary file
+     * first and moved in place, so concurrently started servers never read a
+     * partially written snapshot.
+     *
+     * @param file
+     *            File to write snapshot to
+     * @param specification
+     *            Content of specification
+     * @param includes
+     *            Loader by which the specification has been parsed
+     * @param raml
+     *            Parsed specification
+     */
+    static void write(File file, byte[] specification,
+        IncludeCache includes, Raml raml) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+
+        Collection<String> names = includes.getFetched();
+        File temporary = File.createTempFile(file.getName(), ".tmp",
+            directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(names.size());
+                for (String name : names) {
+                    out.writeUTF(name);
+                }
+                out.writeUTF(key(specification, includes, names));
+
+                ObjectOutputStream model = new ObjectOutputStream(out);
+                model.writeObject(raml);
+                model.flush();
+            }
+            Files.move(temporary.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.uniknow.agiledev.docMockRest.ConditionalRequests;
+import org.uniknow.agiledev.docMockRest.ContentEncoding;
+
+/**
+ * Content of response file together with the representations prepared when
+ * the file is loaded.
+ */
+class ResponseFile {
+
+    private final byte[] content;
+
+    /*
+     * Gzip compressed content, null when not worth compressing
+     */
+    private final byte[] gzip;
+
+    private final String etag;
+
+    private final String gzipEtag;
+
+    private final String lastModified;
+
+    /**
+     * Constructor
+     *
+     * @param content
+     *            Content of response file
+     * @param lastModified
+     *            Time in milliseconds at which file was last modified
+     */
+    ResponseFile(byte[] content, long lastModified) {
+        this(content, ContentEncoding.gzip(content), ConditionalRequests
+            .etag(content), lastModified);
+    }
+
+    private ResponseFile(byte[] content, byte[] gzip, String etag,
+        long lastModified) {
+        this.content = content;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.gzipEtag = gzip != null ? ConditionalRequests.etag(etag,
+            ContentEncoding.GZIP) : null;
+        this.lastModified = ConditionalRequests.httpDate(lastModified);
+    }
+
+    /**
+     * Returns large response file, of which the content is shared by the
+     * requests serving it. Its content is neither compressed nor hashed, the
+     * entity tag is based on its size and modification time.
+     *
+     * @param content
+     *            Content of response file
+     * @param lastModified
+     *            Time in milliseconds at which file was last modified
+     */
+    static ResponseFile large(byte[] content, long lastModified) {
+        return new ResponseFile(content, null, '"'
+            + Long.toHexString(content.length) + '-'
+            + Long.toHexString(lastModified) + '"', lastModified);
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    byte[] getGzip() {
+        return gzip;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Returns entity tag of gzip compressed content
+     */
+    String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns number of bytes kept in memory
+     */
+    long size() {
+        return content.length + (gzip != null ? gzip.length : 0);
+    }
+}
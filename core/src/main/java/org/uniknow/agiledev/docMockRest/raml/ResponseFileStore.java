@@ -0,0 +1,480 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory index of the response files within a directory tree.
+ *
+ * The content of the response files is kept as bytes, together with its gzip
+ * compressed variant, up to a maximum total
+ * size after which the least recently used files are evicted. Lookups don't
+ * lock the store, only caching and invalidating content does. Large files
+ * are neither cached nor compressed, their content is only kept in memory
+ * while requests are serving it, concurrent requests for the same file
+ * share it. Files found
+ * to be missing are remembered as well, so requests without response file
+ * don't probe the file system. Changes to the directory tree are picked up
+ * by watching the directories.
+ */
+class ResponseFileStore implements Closeable {
+
+    private final static Logger LOG = LoggerFactory
+        .getLogger(ResponseFileStore.class);
+
+    /**
+     * Default maximum total size of cached response files
+     */
+    static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Default size from which response files are considered large
+     */
+    static final long DEFAULT_LARGE_BODY_THRESHOLD = 8L * 1024 * 1024;
+
+    /**
+     * Maximum number of missing files that are remembered
+     */
+    static final int MAXIMUM_MISSING = 10000;
+
+    private static final String RESPONSE_FILE = "response.";
+
+    private final Path root;
+
+    private final long maximumSize;
+
+    private final long largeBodyThreshold;
+
+    /*
+     * Content of response files by absolute path. Read without locking,
+     * modified while holding the lock of the store.
+     */
+    private final Map<Path, Cached> bodies = new ConcurrentHashMap<>();
+
+    /*
+     * Content of large response files by absolute path, referenced weakly so
+     * it is released once no request is serving it
+     */
+    private final Map<Path, Large> large = new ConcurrentHashMap<>();
+
+    /*
+     * Cached response files in order of eviction, guarded by the store
+     */
+    private final Deque<Cached> evictionOrder = new ArrayDeque<>();
+
+    /*
+     * Absolute paths of files known not to exist
+     */
+    private final Map<Path, Boolean> missing = new ConcurrentHashMap<>();
+
+    /*
+     * Missing files in order of insertion, guarded by the store
+     */
+    private final Deque<Path> missingOrder = new ArrayDeque<>();
+
+    /*
+     * Total size of cached content, guarded by the store
+     */
+    private long size;
+
+    /*
+     * Number of lookups answered from the missing files
+     */
+    private final LongAdder probesSaved = new LongAdder();
+
+    /*
+     * Incremented on every change within directory tree, prevents content
+     * read before a change from being cached after it.
+     */
+    private volatile long version;
+
+    private final WatchService watcher;
+
+    /*
+     * Watched directories by key
+     */
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor, indexes response files within directory tree
+     *
+     * @param root
+     *            Directory containing response files
+     * @param maximumSize
+     *            Maximum total size in bytes of cached response files
+     */
+    ResponseFileStore(Path root, long maximumSize) throws IOException {
+        this(root, maximumSize, DEFAULT_LARGE_BODY_THRESHOLD);
+    }
+
+    /**
+     * Constructor, indexes response files within directory tree
+     *
+     * @param root
+     *            Directory containing response files
+     * @param maximumSize
+     *            Maximum total size in bytes of cached response files
+     * @param largeBodyThreshold
+     *            Size in bytes from which response files are shared by the
+     *            requests serving them instead of cached
+     */
+    ResponseFileStore(Path root, long maximumSize, long largeBodyThreshold)
+        throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.maximumSize = maximumSize;
+        this.largeBodyThreshold = largeBodyThreshold;
+
+        if (Files.isDirectory(this.root)) {
+            watcher = this.root.getFileSystem().newWatchService();
+            try {
+                index(this.root);
+                LOG.info("Indexed {} response files ({} bytes) within {}",
+                    bodies.size(), size(), this.root);
+
+                Thread thread = new Thread(this::watch,
+                    "response-files-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException | RuntimeException | Error error) {
+                watcher.close();
+                throw error;
+            }
+        } else {
+            LOG.warn("Directory {} containing response files does not exist",
+                this.root);
+            watcher = null;
+        }
+    }
+
+    /**
+     * Returns content of file.
+     *
+     * @param file
+     *            Response file
+     * @return content of file or null if file does not exist
+     */
+    ResponseFile get(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+
+        // Version is read first, content cached after it is up to date
+        long version = this.version;
+        Cached cached = bodies.get(path);
+        if (cached != null) {
+            cached.used = true;
+            return cached.body;
+        }
+        if (missing.containsKey(path)) {
+            probesSaved.increment();
+            return null;
+        }
+
+        if (!Files.exists(path)) {
+            putMissing(path, version);
+            return null;
+        }
+
+        ResponseFile body;
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            long length = Files.size(path);
+            if (length >= largeBodyThreshold) {
+                return ResponseFile.large(getLarge(path, lastModified, length),
+                    lastModified);
+            }
+            body = new ResponseFile(Files.readAllBytes(path), lastModified);
+        } catch (NoSuchFileException error) {
+            // Deleted since checking its existence
+            putMissing(path, version);
+            return null;
+        }
+        if (isWatched(path)) {
+            put(path, body, version);
+        }
+        return body;
+    }
+
+    /**
+     * Returns content of large file, read unless requests are still serving
+     * the content of the same version of the file. Concurrent requests for a
+     * file wait for the one reading it.
+     */
+    private byte[] getLarge(Path path, long lastModified, long length)
+        throws IOException {
+        AtomicReference<byte[]> content = new AtomicReference<>();
+        try {
+            large.compute(path, (key, shared) -> {
+                byte[] bytes = shared != null
+                    && shared.lastModified == lastModified
+                    && shared.length == length ? shared.content.get() : null;
+                if (bytes == null) {
+                    try {
+                        bytes = Files.readAllBytes(key);
+                    } catch (IOException error) {
+                        throw new UncheckedIOException(error);
+                    }
+                    shared = new Large(lastModified, bytes);
+                }
+                content.set(bytes);
+                return shared;
+            });
+        } catch (UncheckedIOException error) {
+            throw error.getCause();
+        }
+        return content.get();
+    }
+
+    /**
+     * Returns total size of cached content
+     */
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Returns number of lookups of missing files that did not probe the file
+     * system
+     */
+    long getProbesSaved() {
+        return probesSaved.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Returns whether changes to file are picked up
+     */
+    private boolean isWatched(Path path) {
+        return watcher != null && path.startsWith(root);
+    }
+
+    private synchronized void put(Path path, ResponseFile body,
+        long version) {
+        if (version != this.version || body.size() > maximumSize) {
+            return;
+        }
+
+        Cached added = new Cached(path, body);
+        Cached previous = bodies.put(path, added);
+        if (previous != null) {
+            evictionOrder.remove(previous);
+            size -= previous.body.size();
+        }
+        evictionOrder.add(added);
+        size += body.size();
+
+        // Evict response files not used since they were last considered for
+        // eviction, approximating the least recently used ones
+        int chances = evictionOrder.size();
+        while (size > maximumSize) {
+            Cached eldest = evictionOrder.poll();
+            if (eldest == added || (eldest.used && chances-- > 0)) {
+                eldest.used = false;
+                evictionOrder.add(eldest);
+            } else {
+                bodies.remove(eldest.path);
+                size -= eldest.body.size();
+            }
+        }
+    }
+
+    private synchronized void putMissing(Path path, long version) {
+        if (version == this.version && isWatched(path)
+            && missing.put(path, Boolean.TRUE) == null) {
+            missingOrder.add(path);
+            if (missingOrder.size() > MAXIMUM_MISSING) {
+                missing.remove(missingOrder.poll());
+            }
+        }
+    }
+
+    /**
+     * Removes file, or all files within directory, from cache
+     */
+    private synchronized void invalidate(Path path) {
+        version++;
+        large.keySet().removeIf(file -> file.startsWith(path));
+        Iterator<Cached> entries = evictionOrder.iterator();
+        while (entries.hasNext()) {
+            Cached entry = entries.next();
+            if (entry.path.startsWith(path)) {
+                size -= entry.body.size();
+                bodies.remove(entry.path);
+                entries.remove();
+            }
+        }
+        invalidateMissing(path);
+    }
+
+    /**
+     * Forgets missing files within directory, these could have been created
+     * before the directory was watched.
+     */
+    private synchronized void invalidateMissing(Path directory) {
+        version++;
+        Iterator<Path> paths = missingOrder.iterator();
+        while (paths.hasNext()) {
+            Path path = paths.next();
+            if (path.startsWith(directory)) {
+                missing.remove(path);
+                paths.remove();
+            }
+        }
+    }
+
+    private synchronized void invalidateAll() {
+        version++;
+        bodies.clear();
+        large.clear();
+        evictionOrder.clear();
+        missing.clear();
+        missingOrder.clear();
+        size = 0;
+    }
+
+    /**
+     * Watches and loads response files within directory tree
+     */
+    private void index(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                BasicFileAttributes attributes) throws IOException {
+                directories.put(dir.register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY), dir);
+                invalidateMissing(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                BasicFileAttributes attributes) throws IOException {
+                if (file.getFileName().toString().startsWith(RESPONSE_FILE)
+                    && attributes.size() < largeBodyThreshold
+                    && size() + attributes.size() <= maximumSize) {
+                    long version = ResponseFileStore.this.version;
+                    put(file, new ResponseFile(Files.readAllBytes(file),
+                        attributes.lastModifiedTime().toMillis()), version);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Invalidates cached content of changed files until store is closed
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Path directory = directories.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                        || directory == null) {
+                        invalidateAll();
+                        continue;
+                    }
+
+                    Path changed = directory.resolve((Path) event.context());
+                    LOG.debug("Response file(s) {} changed", changed);
+                    invalidate(changed);
+
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(changed)) {
+                        try {
+                            index(changed);
+                        } catch (IOException error) {
+                            LOG.warn("Unable to watch " + changed, error);
+                        }
+                    }
+                }
+
+                if (!key.reset()) {
+                    directories.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException error) {
+            LOG.debug("Stopped watching response files within {}", root);
+        }
+    }
+
+    /**
+     * Content of large response file, kept while requests are serving it
+     */
+    private static class Large {
+        private final long lastModified;
+        private final long length;
+        private final WeakReference<byte[]> content;
+
+        private Large(long lastModified, byte[] content) {
+            this.lastModified = lastModified;
+            this.length = content.length;
+            this.content = new WeakReference<>(content);
+        }
+    }
+
+    /**
+     * Cached response file
+     */
+    private static class Cached {
+        private final Path path;
+        private final ResponseFile body;
+
+        /*
+         * Whether file has been used since it was last considered for
+         * eviction
+         */
+        private volatile boolean used;
+
+        private Cached(Path path, ResponseFile body) {
+            this.path = path;
+            this.body = body;
+        }
+    }
+}
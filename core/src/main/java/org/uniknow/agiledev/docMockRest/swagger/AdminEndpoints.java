@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.tomakehurst.wiremock.client.RemoteMappingBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.Response;
+import io.swagger.util.Json;
+import org.apache.http.HttpHeaders;
+import org.uniknow.agiledev.docMockRest.SystemError;
+
+import javax.ws.rs.core.MediaType;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+/**
+ * Endpoints of the mock server reporting on the requests it served, the
+ * number of calls per operation and the metrics of the server.
+ *
+ * WireMock doesn't allow extending its admin API, the endpoints are served
+ * by stubs below `/__mock` instead. The stubs take precedence over stubs of
+ * operations and survive a reset of the server.
+ */
+class AdminEndpoints extends ResponseTransformer {
+
+    static final String NAME = "swagger-admin";
+
+    private static final String ENDPOINT = "endpoint";
+
+    private static final String COUNTERS = "counters";
+
+    private static final String METRICS = "metrics";
+
+    private static final String PROMETHEUS = "prometheus";
+
+    private static final String RESET = "reset";
+
+    /*
+     * Content type of the text format of Prometheus
+     */
+    private static final String PROMETHEUS_TYPE =
+        "text/plain; version=0.0.4; charset=utf-8";
+
+    private final SwaggerMockServer server;
+
+    AdminEndpoints(SwaggerMockServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Returns stubs serving the endpoints
+     */
+    List<RemoteMappingBuilder> stubs() {
+        return Arrays.asList(
+            stub(get(urlEqualTo(SwaggerMockServer.COUNTERS_PATH)), COUNTERS,
+                MediaType.APPLICATION_JSON),
+            stub(get(urlEqualTo(SwaggerMockServer.METRICS_PATH)), METRICS,
+                MediaType.APPLICATION_JSON),
+            stub(get(urlEqualTo(SwaggerMockServer.METRICS_PATH + "/"
+                + PROMETHEUS)), PROMETHEUS, PROMETHEUS_TYPE),
+            stub(post(urlEqualTo(SwaggerMockServer.METRICS_PATH + "/"
+                + RESET)), RESET, MediaType.APPLICATION_JSON));
+    }
+
+    private RemoteMappingBuilder stub(RemoteMappingBuilder request,
+        String endpoint, String contentType) {
+        return request.atPriority(1).willReturn(
+            aResponse().withHeader(HttpHeaders.CONTENT_TYPE, contentType)
+                .withTransformers(NAME)
+                .withTransformerParameter(ENDPOINT, endpoint));
+    }
+
+    @Override
+    public Response transform(Request request, Response response,
+        FileSource files, Parameters parameters) {
+        Object endpoint = parameters != null ? parameters.get(ENDPOINT)
+            : null;
+        if (COUNTERS.equals(endpoint)) {
+            return Response.Builder.like(response).but()
+                .body(json(server.getOperationCounters().snapshot()))
+                .build();
+        }
+        if (METRICS.equals(endpoint)) {
+            return Response.Builder.like(response).but()
+                .body(json(server.getOperationMetrics().snapshot()))
+                .build();
+        }
+        if (PROMETHEUS.equals(endpoint)) {
+            return Response.Builder.like(response).but()
+                .body(server.getOperationMetrics().prometheus()
+                    .getBytes(StandardCharsets.UTF_8))
+                .build();
+        }
+        if (RESET.equals(endpoint)) {
+            server.getOperationMetrics().reset();
+            return Response.Builder.like(response).but()
+                .body(json(server.getOperationMetrics().snapshot()))
+                .build();
+        }
+        return response;
+    }
+
+    private static byte[] json(Object value) {
+        try {
+            return Json.mapper().writeValueAsBytes(value);
+        } catch (JsonProcessingException error) {
+            throw new SystemError(error);
+        }
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
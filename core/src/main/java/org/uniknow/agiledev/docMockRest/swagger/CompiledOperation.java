@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Operation;
+import org.uniknow.agiledev.docMockRest.CompiledRequestPattern;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Operation of a swagger specification together with the default stubs
+ * created for it.
+ *
+ * Operations compiled in lazy mode only contain the information needed to
+ * route requests to them. Their stub is created the first time their request
+ * pattern is needed, see `StubHelper.materialize`.
+ */
+class CompiledOperation {
+
+    /*
+     * Identifies operation within `OperationDispatcher`
+     */
+    private final String dispatchKey;
+
+    private final HttpMethod method;
+
+    private final PathTemplate path;
+
+    private final Operation operation;
+
+    /*
+     * Request pattern of the stub returned by `SwaggerMockServer.when`, null
+     * as long as the stub of a lazy operation has not been created
+     */
+    private volatile CompiledRequestPattern request;
+
+    /*
+     * Creates stub of lazy operation, null for operations created eagerly
+     */
+    private final StubHelper stubHelper;
+
+    /*
+     * Default stubs of operation in order of installation, none when
+     * requests are dispatched to the default stubs shared by all operations
+     */
+    private final List<StubMapping> mappings;
+
+    CompiledOperation(String dispatchKey, HttpMethod method,
+        PathTemplate path, Operation operation, RequestPattern request,
+        List<StubMapping> mappings) {
+        this.dispatchKey = dispatchKey;
+        this.method = method;
+        this.path = path;
+        this.operation = operation;
+        this.request = new CompiledRequestPattern(request);
+        this.mappings = Collections.unmodifiableList(mappings);
+        this.stubHelper = null;
+    }
+
+    /**
+     * Constructor for operation of which the stub is created on first use
+     */
+    CompiledOperation(String dispatchKey, HttpMethod method,
+        PathTemplate path, Operation operation, StubHelper stubHelper) {
+        this.dispatchKey = dispatchKey;
+        this.method = method;
+        this.path = path;
+        this.operation = operation;
+        this.mappings = Collections.emptyList();
+        this.stubHelper = stubHelper;
+    }
+
+    String getDispatchKey() {
+        return dispatchKey;
+    }
+
+    HttpMethod getMethod() {
+        return method;
+    }
+
+    PathTemplate getPath() {
+        return path;
+    }
+
+    Operation getOperation() {
+        return operation;
+    }
+
+    String getOperationId() {
+        return operation.getOperationId();
+    }
+
+    /**
+     * Returns request pattern of operation, creating the stub of a lazy
+     * operation when not done yet.
+     */
+    RequestPattern getRequest() {
+        return getCompiledRequest().getPattern();
+    }
+
+    /**
+     * Returns request pattern of operation prepared for matching
+     */
+    CompiledRequestPattern getCompiledRequest() {
+        CompiledRequestPattern request = this.request;
+        if (request == null) {
+            synchronized (this) {
+                request = this.request;
+                if (request == null) {
+                    request = new CompiledRequestPattern(stubHelper
+                        .materialize(this));
+                    this.request = request;
+                    stubHelper.materialized(this);
+                }
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Returns whether the stub of the operation has been created
+     */
+    boolean isMaterialized() {
+        return request != null;
+    }
+
+    List<StubMapping> getMappings() {
+        return mappings;
+    }
+}
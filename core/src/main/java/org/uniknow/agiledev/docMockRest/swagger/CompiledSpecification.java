@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import io.swagger.models.Swagger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable result of compiling a swagger specification: its operations, the
+ * index to route requests to them and all default stubs.
+ *
+ * The compiled specification is created before any stub is installed and is
+ * published as a whole by `StubHelper.install`. In lazy mode the operations
+ * share their default stubs and their own stubs are created on first use.
+ */
+class CompiledSpecification {
+
+    private final Swagger specification;
+
+    private final List<CompiledOperation> operations;
+
+    /*
+     * Operations by operation ID
+     */
+    private final Map<String, CompiledOperation> identified;
+
+    private final OperationRouter router;
+
+    private final List<StubMapping> mappings;
+
+    CompiledSpecification(Swagger specification,
+        List<CompiledOperation> operations, OperationRouter router) {
+        this(specification, operations, router, Collections
+            .<StubMapping> emptyList());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param defaults
+     *            Default stubs shared by all operations, installed after the
+     *            stubs of the operations
+     */
+    CompiledSpecification(Swagger specification,
+        List<CompiledOperation> operations, OperationRouter router,
+        List<StubMapping> defaults) {
+        Map<String, CompiledOperation> identified = new HashMap<>();
+        List<StubMapping> mappings = new ArrayList<>();
+        for (CompiledOperation operation : operations) {
+            mappings.addAll(operation.getMappings());
+            if (operation.getOperationId() != null) {
+                identified.put(operation.getOperationId(), operation);
+            }
+        }
+        mappings.addAll(defaults);
+
+        this.specification = specification;
+        this.operations = Collections.unmodifiableList(operations);
+        this.identified = identified;
+        this.router = router;
+        this.mappings = Collections.unmodifiableList(mappings);
+    }
+
+    Swagger getSpecification() {
+        return specification;
+    }
+
+    /**
+     * Returns operations in the order of the paths within the specification
+     */
+    List<CompiledOperation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns operation with specified operation ID or null
+     */
+    CompiledOperation getOperation(String operationId) {
+        return identified.get(operationId);
+    }
+
+    OperationRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Returns default stubs of all operations in order of installation
+     */
+    List<StubMapping> getMappings() {
+        return mappings;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.util.Json;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Distribution of the delay in milliseconds with which an operation responds.
+ *
+ * Latencies are set per operation through `SwaggerMockServer.setLatency`,
+ * `SwaggerConfig.setLatency` or the `x-mock-latency` extension of the
+ * operation within the specification, like
+ *
+ * <pre>
+ * x-mock-latency:
+ *   distribution: lognormal
+ *   median: 80
+ *   sigma: 0.5
+ * </pre>
+ */
+public abstract class Latency {
+
+    /**
+     * Extension of operation specifying its latency
+     */
+    public static final String EXTENSION = "x-mock-latency";
+
+    /**
+     * Returns latency of exactly the specified milliseconds
+     */
+    public static Latency fixed(long millis) {
+        checkNotNegative(millis);
+        return new Latency() {
+            @Override
+            long sample() {
+                return millis;
+            }
+        };
+    }
+
+    /**
+     * Returns latency uniformly distributed between minimum and maximum
+     * milliseconds, both inclusive
+     */
+    public static Latency uniform(long minimum, long maximum) {
+        checkNotNegative(minimum);
+        if (maximum < minimum) {
+            throw new IllegalArgumentException("maximum below minimum");
+        }
+        return new Latency() {
+            @Override
+            long sample() {
+                return ThreadLocalRandom.current().nextLong(minimum,
+                    maximum + 1);
+            }
+        };
+    }
+
+    /**
+     * Returns log-normally distributed latency, the distribution of the
+     * response times of most services
+     *
+     * @param median
+     *            Median latency in milliseconds
+     * @param sigma
+     *            Standard deviation of the logarithm of the latency, the
+     *            larger the longer the tail
+     */
+    public static Latency logNormal(double median, double sigma) {
+        if (median <= 0 || sigma < 0) {
+            throw new IllegalArgumentException(
+                "median not positive or sigma negative");
+        }
+        return new Latency() {
+            @Override
+            long sample() {
+                return Math.round(median
+                    * Math.exp(sigma
+                        * ThreadLocalRandom.current().nextGaussian()));
+            }
+        };
+    }
+
+    /**
+     * Returns latency replaying a histogram of measured latencies, every
+     * latency is returned in proportion to the number of times it has been
+     * measured
+     *
+     * @param histogram
+     *            Number of measurements by latency in milliseconds
+     */
+    public static Latency histogram(Map<Long, Long> histogram) {
+        if (histogram.isEmpty()) {
+            throw new IllegalArgumentException("empty histogram");
+        }
+
+        long[] latencies = new long[histogram.size()];
+        long[] cumulative = new long[histogram.size()];
+        long total = 0;
+        int index = 0;
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(histogram)
+            .entrySet()) {
+            checkNotNegative(entry.getKey());
+            if (entry.getValue() <= 0) {
+                throw new IllegalArgumentException(
+                    "count of histogram not positive");
+            }
+            total += entry.getValue();
+            latencies[index] = entry.getKey();
+            cumulative[index++] = total;
+        }
+
+        long measurements = total;
+        return new Latency() {
+            @Override
+            long sample() {
+                long position = ThreadLocalRandom.current().nextLong(
+                    measurements);
+                int found = Arrays.binarySearch(cumulative, position + 1);
+                return latencies[found >= 0 ? found : -found - 1];
+            }
+        };
+    }
+
+    /**
+     * Returns latency specified by `x-mock-latency` extension
+     *
+     * @throws IllegalArgumentException
+     *             when extension doesn't specify a valid latency
+     */
+    static Latency parse(Object extension) {
+        Map<?, ?> latency = Json.mapper().convertValue(extension, Map.class);
+        if (latency == null) {
+            throw new IllegalArgumentException(EXTENSION + " is empty");
+        }
+
+        Object distribution = latency.get("distribution");
+        switch (String.valueOf(distribution)) {
+        case "fixed":
+            return fixed(number(latency, "millis").longValue());
+        case "uniform":
+            return uniform(number(latency, "min").longValue(),
+                number(latency, "max").longValue());
+        case "lognormal":
+            return logNormal(number(latency, "median").doubleValue(),
+                number(latency, "sigma").doubleValue());
+        case "histogram":
+            Map<?, ?> buckets = Json.mapper().convertValue(
+                latency.get("buckets"), Map.class);
+            if (buckets == null) {
+                throw new IllegalArgumentException(EXTENSION
+                    + " without buckets");
+            }
+            Map<Long, Long> histogram = new TreeMap<>();
+            for (Map.Entry<?, ?> bucket : buckets.entrySet()) {
+                histogram.put(Long.valueOf(bucket.getKey().toString()),
+                    Long.valueOf(bucket.getValue().toString()));
+            }
+            return histogram(histogram);
+        default:
+            throw new IllegalArgumentException("Unknown distribution "
+                + distribution + " of " + EXTENSION);
+        }
+    }
+
+    private static Number number(Map<?, ?> latency, String name) {
+        Object value = latency.get(name);
+        if (!(value instanceof Number)) {
+            throw new IllegalArgumentException(EXTENSION + " without "
+                + name);
+        }
+        return (Number) value;
+    }
+
+    private static void checkNotNegative(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("negative latency");
+        }
+    }
+
+    /**
+     * Returns delay in milliseconds of a response
+     */
+    abstract long sample();
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+
+/**
+ * Delays the responses of operations by a delay sampled from the latency of
+ * the operation, unless the stub responding has a fixed delay.
+ */
+class LatencyTransformer extends ResponseDefinitionTransformer {
+
+    static final String NAME = "swagger-operation-latency";
+
+    private final SwaggerMockServer server;
+
+    LatencyTransformer(SwaggerMockServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public ResponseDefinition transform(Request request,
+        ResponseDefinition responseDefinition, FileSource files,
+        Parameters parameters) {
+        // Delay of the stub itself is kept
+        if (responseDefinition.getFixedDelayMilliseconds() != null) {
+            return responseDefinition;
+        }
+        Latency latency = server.getLatency(request);
+        if (latency == null) {
+            return responseDefinition;
+        }
+        return ResponseDefinitionBuilder.like(responseDefinition).but()
+            .withFixedDelay((int) latency.sample()).build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
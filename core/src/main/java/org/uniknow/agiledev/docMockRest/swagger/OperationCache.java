@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.MultiValuePattern;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.swagger.models.Operation;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Bounded cache of the operations matching request patterns.
+ *
+ * Whether an operation matches a request pattern only depends on the method,
+ * the URL and the names of the query parameters and headers of the pattern,
+ * these form the key of the cache. Least recently used entries are evicted
+ * when the cache is full.
+ */
+class OperationCache {
+
+    static final int DEFAULT_SIZE = 1024;
+
+    private final Cache<Key, Optional<Operation>> operations;
+
+    OperationCache(int size) {
+        operations = CacheBuilder.newBuilder().maximumSize(size)
+            .recordStats().build();
+    }
+
+    /**
+     * Returns cached result of lookup of operation matching request.
+     *
+     * @return null if request has not been looked up before, otherwise
+     *         result of lookup which is empty when no operation matched.
+     */
+    Optional<Operation> get(RequestPattern request) {
+        return operations.getIfPresent(new Key(request));
+    }
+
+    void put(RequestPattern request, Operation operation) {
+        operations.put(new Key(request), Optional.ofNullable(operation));
+    }
+
+    long getHitCount() {
+        return operations.stats().hitCount();
+    }
+
+    long getMissCount() {
+        return operations.stats().missCount();
+    }
+
+    long size() {
+        return operations.size();
+    }
+
+    /**
+     * Normalized request pattern
+     */
+    private static class Key {
+        private final RequestMethod method;
+        private final String url;
+        private final String urlPath;
+        private final String urlPattern;
+        private final String urlPathPattern;
+        private final SortedSet<String> queryParameters;
+        private final SortedSet<String> headers;
+
+        private Key(RequestPattern request) {
+            method = request.getMethod();
+            url = request.getUrl();
+            urlPath = request.getUrlPath();
+            urlPattern = request.getUrlPattern();
+            urlPathPattern = request.getUrlPathPattern();
+            queryParameters = names(request.getQueryParameters());
+            headers = names(request.getHeaders());
+        }
+
+        private static SortedSet<String> names(
+            Map<String, MultiValuePattern> values) {
+            if (values == null || values.isEmpty()) {
+                return Collections.emptySortedSet();
+            }
+            return new TreeSet<>(values.keySet());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return Objects.equals(method, key.method)
+                && Objects.equals(url, key.url)
+                && Objects.equals(urlPath, key.urlPath)
+                && Objects.equals(urlPattern, key.urlPattern)
+                && Objects.equals(urlPathPattern, key.urlPathPattern)
+                && queryParameters.equals(key.queryParameters)
+                && headers.equals(key.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, url, urlPath, urlPattern,
+                urlPathPattern, queryParameters, headers);
+        }
+    }
+}
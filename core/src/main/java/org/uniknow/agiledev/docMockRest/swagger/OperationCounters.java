@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestListener;
+import com.github.tomakehurst.wiremock.http.Response;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Number of requests served per operation and status code, allowing calls
+ * of an operation to be verified without scanning the request journal.
+ */
+class OperationCounters implements RequestListener {
+
+    /*
+     * Resolves the operation of a request
+     */
+    private final Function<Request, String> operations;
+
+    private final ConcurrentMap<String, Counter> counters =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param operations
+     *            Resolves identifier of the operation of a request, null for
+     *            requests without operation
+     */
+    OperationCounters(Function<Request, String> operations) {
+        this.operations = operations;
+    }
+
+    @Override
+    public void requestReceived(Request request, Response response) {
+        String operationId = operations.apply(request);
+        if (operationId != null) {
+            counters.computeIfAbsent(operationId, id -> new Counter())
+                .increment(response.getStatus());
+        }
+    }
+
+    /**
+     * Returns number of requests served for operation
+     */
+    long count(String operationId) {
+        Counter counter = counters.get(operationId);
+        return counter != null ? counter.calls.sum() : 0;
+    }
+
+    /**
+     * Returns number of requests served for operation with status code
+     */
+    long count(String operationId, int status) {
+        Counter counter = counters.get(operationId);
+        LongAdder calls = counter != null ? counter.statuses.get(status)
+            : null;
+        return calls != null ? calls.sum() : 0;
+    }
+
+    /**
+     * Returns number of calls and calls per status code by operation, as
+     * served by the counters endpoint
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+            Map<String, Long> statuses = new TreeMap<>();
+            for (Map.Entry<Integer, LongAdder> status : counter.getValue()
+                .statuses.entrySet()) {
+                statuses.put(status.getKey().toString(), status.getValue()
+                    .sum());
+            }
+
+            Map<String, Object> operation = new TreeMap<>();
+            operation.put("calls", counter.getValue().calls.sum());
+            operation.put("statuses", statuses);
+            snapshot.put(counter.getKey(), operation);
+        }
+        return snapshot;
+    }
+
+    void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Calls of a single operation
+     */
+    private static class Counter {
+        private final LongAdder calls = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> statuses =
+            new ConcurrentHashMap<>();
+
+        private void increment(int status) {
+            calls.increment();
+            statuses.computeIfAbsent(status, code -> new LongAdder())
+                .increment();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.matching.MatchResult;
+import com.github.tomakehurst.wiremock.matching.RequestMatcherExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request matcher resolving the operation of a request using the
+ * `OperationRouter` of the mock server.
+ *
+ * The default stubs shared by the operations are registered with this
+ * matcher. The request is resolved once, by the first default stub that is
+ * evaluated, the remaining default stub only compares the resolved response
+ * with its own.
+ */
+class OperationDispatcher extends RequestMatcherExtension {
+
+    static final String NAME = "swagger-operation-dispatch";
+
+    /**
+     * Default response of operation, requests containing all mandatory
+     * parameters
+     */
+    static final String DEFAULT = "default";
+
+    /**
+     * Response for requests missing mandatory parameters
+     */
+    static final String BAD_REQUEST = "badRequest";
+
+    private static final String RESPONSE = "response";
+
+    private final SwaggerMockServer server;
+
+    /*
+     * Request being resolved by the thread. Within a thread the same request
+     * instance is passed to all stubs that are evaluated. Released once the
+     * response has been recorded, so idle threads don't keep their last
+     * request.
+     */
+    private final ThreadLocal<Resolution> resolved = new ThreadLocal<>();
+
+    OperationDispatcher(SwaggerMockServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Returns parameters for stub matching the requests dispatched to any
+     * operation, used for the default stubs shared by the operations
+     *
+     * @param response
+     *            Either `DEFAULT` or `BAD_REQUEST`
+     */
+    static Parameters parameters(String response) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(RESPONSE, response);
+        return Parameters.from(parameters);
+    }
+
+    @Override
+    public MatchResult match(Request request, Parameters parameters) {
+        Resolution resolution = resolve(request);
+        if (resolution.operationId != null
+            && resolution.response.equals(parameters.get(RESPONSE))) {
+            return MatchResult.exactMatch();
+        }
+        return MatchResult.noMatch();
+    }
+
+    /**
+     * Returns the operation and response to which the request is dispatched.
+     */
+    Resolution resolve(Request request) {
+        Resolution resolution = resolved.get();
+        if (resolution == null || resolution.request != request) {
+            resolution = dispatch(request, System.nanoTime());
+            resolved.set(resolution);
+            server.getOperationMetrics().dispatched(resolution);
+        }
+        return resolution;
+    }
+
+    /**
+     * Releases the resolution of request by the current thread, called once
+     * the response to the request has been recorded.
+     */
+    void release(Request request) {
+        Resolution resolution = resolved.get();
+        if (resolution != null && resolution.request == request) {
+            resolved.remove();
+        }
+    }
+
+    private Resolution dispatch(Request request, long started) {
+        List<Route> routes = server.getRouter().candidates(
+            request.getMethod(), request.getUrl());
+
+        Route badRequest = null;
+        for (Route route : routes) {
+            if (route.acceptsQuery(request)) {
+                route.materialize();
+                return new Resolution(request, started,
+                    route.getOperationId(), DEFAULT);
+            }
+            if (badRequest == null && route.hasMandatoryQueryParameters()) {
+                badRequest = route;
+            }
+        }
+
+        if (badRequest != null) {
+            badRequest.materialize();
+            return new Resolution(request, started,
+                badRequest.getOperationId(), BAD_REQUEST);
+        }
+        return new Resolution(request, started, null, null);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Operation and response to which a request is dispatched
+     */
+    static class Resolution {
+        private final Request request;
+        private final String operationId;
+        private final String response;
+
+        /*
+         * Moments, in nanoseconds, at which dispatching the request started
+         * and finished
+         */
+        private final long started;
+        private final long dispatched = System.nanoTime();
+
+        /*
+         * Whether the response to the request has been recorded
+         */
+        private boolean completed;
+
+        private Resolution(Request request, long started, String operationId,
+            String response) {
+            this.request = request;
+            this.started = started;
+            this.operationId = operationId;
+            this.response = response;
+        }
+
+        long getStarted() {
+            return started;
+        }
+
+        long getDispatched() {
+            return dispatched;
+        }
+
+        /**
+         * Marks response to request as recorded
+         *
+         * @return false if response has been recorded before
+         */
+        boolean complete() {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            return true;
+        }
+
+        String getOperationId() {
+            return operationId;
+        }
+
+        String getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestListener;
+import com.github.tomakehurst.wiremock.http.Response;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Time the mock server spends on requests, per operation and phase, next to
+ * the number of requests, errors and requests in flight.
+ *
+ * Two phases are measured. `match` is dispatching the request to its
+ * operation. `serve` runs from the start of dispatching until the response
+ * is rendered, including the stubs matched and the transformers applied.
+ * Simulated delays and writing the response are not part of the time of
+ * the mock. Times are only measured for requests dispatched to their
+ * operation by the `OperationDispatcher`.
+ */
+class OperationMetrics implements RequestListener {
+
+    static final String MATCH = "match";
+
+    static final String SERVE = "serve";
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    /*
+     * Resolves the dispatching of a request
+     */
+    private final Function<Request, OperationDispatcher.Resolution> resolutions;
+
+    /*
+     * Releases the resolution of a request once its response is recorded
+     */
+    private final Consumer<Request> released;
+
+    private final ConcurrentMap<String, Phases> operations =
+        new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    /*
+     * Moment, in nanoseconds, from which throughput is measured
+     */
+    private volatile long since = System.nanoTime();
+
+    OperationMetrics(
+        Function<Request, OperationDispatcher.Resolution> resolutions,
+        Consumer<Request> released) {
+        this.resolutions = resolutions;
+        this.released = released;
+    }
+
+    /**
+     * Records request dispatched to its operation
+     */
+    void dispatched(OperationDispatcher.Resolution resolution) {
+        inFlight.increment();
+        if (resolution.getOperationId() != null) {
+            phases(resolution.getOperationId()).match.record(
+                resolution.getDispatched() - resolution.getStarted());
+        }
+    }
+
+    @Override
+    public void requestReceived(Request request, Response response) {
+        OperationDispatcher.Resolution resolution = resolutions.apply(request);
+        // Last listener of the server, resolution is no longer needed
+        released.accept(request);
+        if (!resolution.complete()) {
+            return;
+        }
+
+        inFlight.decrement();
+        requests.increment();
+        if (response.getStatus() >= 500) {
+            errors.increment();
+        }
+        if (resolution.getOperationId() != null) {
+            phases(resolution.getOperationId()).serve.record(
+                System.nanoTime() - resolution.getStarted());
+        }
+    }
+
+    private Phases phases(String operationId) {
+        return operations.computeIfAbsent(operationId, id -> new Phases());
+    }
+
+    /**
+     * Clears all metrics except the number of requests in flight
+     */
+    void reset() {
+        operations.clear();
+        requests.reset();
+        errors.reset();
+        since = System.nanoTime();
+    }
+
+    /**
+     * Returns metrics as served by the JSON metrics endpoint, times in
+     * microseconds
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        snapshot.put("requests", requests.sum());
+        snapshot.put("errors", errors.sum());
+        snapshot.put("inFlight", inFlight.sum());
+        snapshot.put("throughput", throughput());
+
+        Map<String, Object> phases = new TreeMap<>();
+        for (Map.Entry<String, Phases> operation : operations.entrySet()) {
+            Map<String, Object> histograms = new TreeMap<>();
+            histograms.put(MATCH, snapshot(operation.getValue().match));
+            histograms.put(SERVE, snapshot(operation.getValue().serve));
+            phases.put(operation.getKey(), histograms);
+        }
+        snapshot.put("operations", phases);
+        return snapshot;
+    }
+
+    private static Map<String, Object> snapshot(LatencyHistogram histogram) {
+        Map<String, Object> snapshot = new TreeMap<>();
+        long count = histogram.getCount();
+        snapshot.put("count", count);
+        snapshot.put("mean", count > 0 ? micros(histogram.getSum()) / count
+            : 0);
+        snapshot.put("max", micros(histogram.getMax()));
+        for (double percentile : PERCENTILES) {
+            snapshot.put("p" + format(percentile),
+                micros(histogram.getPercentile(percentile)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns metrics in the text format of Prometheus, times in seconds
+     */
+    String prometheus() {
+        StringBuilder text = new StringBuilder();
+        metric(text, "mock_requests_total", "counter",
+            "Requests served by the mock server", requests.sum());
+        metric(text, "mock_errors_total", "counter",
+            "Requests answered with a server error", errors.sum());
+        metric(text, "mock_requests_in_flight", "gauge",
+            "Requests being served", inFlight.sum());
+        metric(text, "mock_throughput", "gauge",
+            "Requests per second since start or reset", throughput());
+
+        text.append("# HELP mock_phase_seconds Time spent by the mock server "
+            + "per operation and phase\n");
+        text.append("# TYPE mock_phase_seconds summary\n");
+        for (Map.Entry<String, Phases> operation : new TreeMap<>(operations)
+            .entrySet()) {
+            summary(text, operation.getKey(), MATCH,
+                operation.getValue().match);
+            summary(text, operation.getKey(), SERVE,
+                operation.getValue().serve);
+        }
+        return text.toString();
+    }
+
+    private static void metric(StringBuilder text, String name, String type,
+        String help, Number value) {
+        text.append("# HELP ").append(name).append(' ').append(help)
+            .append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type)
+            .append('\n');
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String operationId,
+        String phase, LatencyHistogram histogram) {
+        String labels = "operation=\"" + escape(operationId)
+            + "\",phase=\"" + phase + "\"";
+        for (double percentile : PERCENTILES) {
+            text.append("mock_phase_seconds{").append(labels)
+                .append(",quantile=\"").append(quantile(percentile))
+                .append("\"} ")
+                .append(seconds(histogram.getPercentile(percentile)))
+                .append('\n');
+        }
+        text.append("mock_phase_seconds_sum{").append(labels).append("} ")
+            .append(seconds(histogram.getSum())).append('\n');
+        text.append("mock_phase_seconds_count{").append(labels).append("} ")
+            .append(histogram.getCount()).append('\n');
+    }
+
+    private double throughput() {
+        double elapsed = (System.nanoTime() - since) / 1e9;
+        return elapsed > 0 ? requests.sum() / elapsed : 0;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1e3;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String
+            .valueOf((long) percentile) : String.valueOf(percentile).replace(
+            '.', '_');
+    }
+
+    private static String quantile(double percentile) {
+        return BigDecimal.valueOf(percentile).movePointLeft(2)
+            .stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"")
+            .replace("\n", "\\n");
+    }
+
+    /**
+     * Histograms of the phases of an operation
+     */
+    private static class Phases {
+        private final LatencyHistogram match = new LatencyHistogram();
+        private final LatencyHistogram serve = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the operations within a swagger specification, organized as a trie
+ * of path segments per HTTP method.
+ *
+ * Literal segments are looked up by name, templated segments ({@code {id}})
+ * match a single segment of the type of the path parameter. Looking up a
+ * request therefore costs O(path depth) instead of a regular expression
+ * evaluation per operation.
+ */
+class OperationRouter {
+
+    /**
+     * Root of the trie per HTTP method
+     */
+    private final Map<RequestMethod, Node> roots = new HashMap<>();
+
+    /**
+     * Adds operation to index.
+     *
+     * @param method
+     *            HTTP method of operation
+     * @param path
+     *            Path template of operation
+     * @param route
+     *            Operation reachable on path
+     */
+    void add(RequestMethod method, PathTemplate path, Route route) {
+        Node node = roots.get(method);
+        if (node == null) {
+            node = new Node(null);
+            roots.put(method, node);
+        }
+
+        for (PathTemplate.Segment segment : path.getSegments()) {
+            node = node.child(segment);
+        }
+        node.routes.add(route);
+    }
+
+    /**
+     * Adds operation to index, path parameters match any value.
+     *
+     * @param method
+     *            HTTP method of operation
+     * @param path
+     *            Path of operation as specified within swagger specification
+     *            (e.g. /user/{username})
+     * @param route
+     *            Operation reachable on path
+     */
+    void add(RequestMethod method, String path, Route route) {
+        add(method, new PathTemplate(path), route);
+    }
+
+    /**
+     * Returns routes of the operations whose path matches the specified URL.
+     * Routes reached through literal segments are returned before routes
+     * reached through templated segments.
+     *
+     * @param method
+     *            HTTP method of request
+     * @param url
+     *            URL of request, optionally including query string
+     * @return matching routes, empty list if none matches.
+     */
+    List<Route> candidates(RequestMethod method, String url) {
+        Node root = roots.get(method);
+        if (root == null) {
+            return Collections.emptyList();
+        }
+
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            url = url.substring(0, query);
+        }
+
+        List<Route> result = new ArrayList<>(1);
+        collect(root, segments(url), 0, result);
+        return result;
+    }
+
+    /**
+     * Removes all operations from index.
+     */
+    void clear() {
+        roots.clear();
+    }
+
+    private void collect(Node node, String[] segments, int index,
+        List<Route> result) {
+        if (index == segments.length) {
+            result.addAll(node.routes);
+            return;
+        }
+
+        Node literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            collect(literal, segments, index + 1, result);
+        }
+        for (Node template : node.templates) {
+            if (template.segment.matches(segments[index])) {
+                collect(template, segments, index + 1, result);
+            }
+        }
+    }
+
+    /**
+     * Splits path into its segments, ignoring the leading slash.
+     */
+    static String[] segments(String path) {
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path.split("/", -1);
+    }
+
+    /**
+     * Node within trie
+     */
+    private static class Node {
+        /*
+         * Segment leading to this node, null for root
+         */
+        private final PathTemplate.Segment segment;
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Node> templates = new ArrayList<>(1);
+        private final List<Route> routes = new ArrayList<>(1);
+
+        private Node(PathTemplate.Segment segment) {
+            this.segment = segment;
+        }
+
+        private Node child(PathTemplate.Segment segment) {
+            if (segment.isLiteral()) {
+                Node node = literals.get(segment.getLiteral());
+                if (node == null) {
+                    node = new Node(segment);
+                    literals.put(segment.getLiteral(), node);
+                }
+                return node;
+            }
+
+            // Templated segments of the same type share a node
+            for (Node node : templates) {
+                if (node.segment.getRegularExpression().equals(
+                    segment.getRegularExpression())) {
+                    return node;
+                }
+            }
+            Node node = new Node(segment);
+            templates.add(node);
+            return node;
+        }
+    }
+}
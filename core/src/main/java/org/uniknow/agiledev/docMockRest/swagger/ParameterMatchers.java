@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.SerializableParameter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer.LOG;
+
+/**
+ * Creates regular expressions matching the values of swagger parameters based
+ * on their type, format, enumeration or pattern.
+ */
+final class ParameterMatchers {
+
+    /**
+     * Matches any value within a single path segment
+     */
+    static final String ANY_SEGMENT = "[^/?]+";
+
+    /**
+     * Matches any value of a query parameter
+     */
+    static final String ANY_VALUE = ".*";
+
+    static final String INTEGER = "-?[0-9]+";
+    static final String NUMBER = "-?[0-9]+(\\.[0-9]+)?";
+    static final String BOOLEAN = "(true|false)";
+    static final String UUID = "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}";
+    static final String DATE = "[0-9]{4}-[0-9]{2}-[0-9]{2}";
+
+    /**
+     * Compiled patterns by regular expression. Operations share few distinct
+     * parameter types so each expression is compiled only once.
+     */
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private ParameterMatchers() {
+    }
+
+    /**
+     * Returns regular expression matching the values of the parameter.
+     *
+     * @param parameter
+     *            Swagger parameter, may be null if parameter is not specified
+     * @param any
+     *            Regular expression that is returned when type of parameter
+     *            doesn't restrict its values
+     */
+    static String regularExpression(Parameter parameter, String any) {
+        if (parameter == null) {
+            return any;
+        }
+
+        String pattern = pattern(parameter);
+        if (pattern != null) {
+            return "(?:" + pattern + ")";
+        }
+        return typedExpression(parameter, any);
+    }
+
+    /**
+     * Returns regular expression matching the values of the path parameter
+     * within a path segment. A pattern of the parameter is bounded to the
+     * segment, it can't match across a `/` or into the query.
+     *
+     * @param parameter
+     *            Swagger path parameter, may be null if parameter is not
+     *            specified
+     * @param name
+     *            Name of the group capturing the remainder of the path, must
+     *            be unique within the regular expression of the path
+     */
+    static String segmentExpression(Parameter parameter, String name) {
+        if (parameter == null) {
+            return ANY_SEGMENT;
+        }
+
+        String pattern = pattern(parameter);
+        if (pattern != null) {
+            // Match of pattern must be followed by the rest of the segment
+            // and the remainder of the path as captured before the match
+            return "(?=[^/?]*(?<" + name + ">.*+))(?:" + pattern
+                + ")(?=[^/?]*\\k<" + name + ">$)";
+        }
+        return typedExpression(parameter, ANY_SEGMENT);
+    }
+
+    private static String typedExpression(Parameter parameter, String any) {
+
+        if (parameter instanceof SerializableParameter) {
+            SerializableParameter serializable = (SerializableParameter) parameter;
+
+            List<String> values = serializable.getEnum();
+            if (values != null && !values.isEmpty()) {
+                StringBuilder expression = new StringBuilder("(");
+                for (String value : values) {
+                    if (expression.length() > 1) {
+                        expression.append('|');
+                    }
+                    expression.append(quote(value));
+                }
+                return expression.append(')').toString();
+            }
+
+            String type = serializable.getType();
+            String format = serializable.getFormat();
+            if ("integer".equals(type)) {
+                return INTEGER;
+            } else if ("number".equals(type)) {
+                return NUMBER;
+            } else if ("boolean".equals(type)) {
+                return BOOLEAN;
+            } else if ("string".equals(type) && "uuid".equals(format)) {
+                return UUID;
+            } else if ("string".equals(type) && "date".equals(format)) {
+                return DATE;
+            }
+        }
+        return any;
+    }
+
+    /**
+     * Returns compiled pattern for regular expression
+     */
+    static Pattern compile(String regularExpression) {
+        Pattern pattern = PATTERNS.get(regularExpression);
+        if (pattern == null) {
+            pattern = Pattern.compile(regularExpression);
+            PATTERNS.putIfAbsent(regularExpression, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Escapes characters within text that have a special meaning within
+     * regular expressions.
+     */
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ("\\.[]{}()<>*+-=!?^$|".indexOf(c) >= 0) {
+                quoted.append('\\');
+            }
+            quoted.append(c);
+        }
+        return quoted.toString();
+    }
+
+    /**
+     * Returns pattern of parameter without anchors, null if parameter has no
+     * pattern or its pattern isn't a valid Java regular expression
+     */
+    private static String pattern(Parameter parameter) {
+        String pattern = parameter.getPattern();
+        if (pattern == null || pattern.isEmpty()) {
+            return null;
+        }
+
+        pattern = stripAnchors(pattern);
+        try {
+            compile(pattern);
+        } catch (PatternSyntaxException invalid) {
+            LOG.warn("Ignoring pattern '{}' of parameter {}: {}",
+                parameter.getPattern(), parameter.getName(),
+                invalid.getDescription());
+            return null;
+        }
+        return pattern;
+    }
+
+    private static String stripAnchors(String pattern) {
+        if (pattern.startsWith("^")) {
+            pattern = pattern.substring(1);
+        }
+        if (pattern.endsWith("$") && !pattern.endsWith("\\$")) {
+            pattern = pattern.substring(0, pattern.length() - 1);
+        }
+        return pattern;
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.models.parameters.Parameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Path template of an operation (e.g. /users/{id}/orders/{oid}) compiled into
+ * a matcher per path segment.
+ *
+ * Templated segments match a single segment using a regular expression based
+ * on the type of the path parameter, so the expression of the whole path
+ * never has to backtrack across segments.
+ */
+class PathTemplate {
+
+    /**
+     * Matches path parameter place holder within path segment
+     */
+    private static final Pattern PARAMETER = Pattern.compile("\\{([^{}/]*)\\}");
+
+    private final String path;
+
+    private final List<Segment> segments;
+
+    private final String regularExpression;
+
+    /*
+     * Regular expression matching the path when path parameters match any
+     * value, created on first use
+     */
+    private Pattern untyped;
+
+    /**
+     * Constructor
+     *
+     * @param path
+     *            Path as specified within swagger specification
+     * @param parameters
+     *            Parameters of the operation, path parameters are used to
+     *            determine what values are matched by templated segments.
+     */
+    PathTemplate(String path, List<Parameter> parameters) {
+        Map<String, Parameter> pathParameters = new HashMap<>();
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                if ("path".equalsIgnoreCase(parameter.getIn())) {
+                    pathParameters.put(parameter.getName(), parameter);
+                }
+            }
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder expression = new StringBuilder();
+        String[] parts = OperationRouter.segments(path);
+        for (int depth = 0; depth < parts.length; depth++) {
+            Segment compiled = compile(parts[depth], depth, pathParameters);
+            segments.add(compiled);
+            expression.append('/').append(compiled.regularExpression);
+        }
+
+        this.path = path;
+        this.segments = Collections.unmodifiableList(segments);
+        this.regularExpression = expression.toString();
+    }
+
+    /**
+     * Creates template for path without parameter definitions, path parameters
+     * match any value within a segment.
+     */
+    PathTemplate(String path) {
+        this(path, Collections.<Parameter> emptyList());
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Returns regular expression matching the path.
+     */
+    String getRegularExpression() {
+        return regularExpression;
+    }
+
+    /**
+     * Returns whether the regular expression of a stub denotes this path.
+     * Expressions written for untyped path parameters (e.g. /pet/.*) don't
+     * match the typed expression of the path, they either match the path
+     * template itself or are accepted when path parameters match any value.
+     *
+     * @param regex
+     *            Regular expression of the URL of a stub
+     */
+    boolean matchedBy(String regex) {
+        try {
+            if (Pattern.matches(regex, path)) {
+                return true;
+            }
+        } catch (PatternSyntaxException invalid) {
+            return false;
+        }
+
+        Pattern untyped = this.untyped;
+        if (untyped == null) {
+            StringBuilder expression = new StringBuilder();
+            Matcher matcher = PARAMETER.matcher(path);
+            int start = 0;
+            while (matcher.find()) {
+                expression.append(ParameterMatchers.quote(path.substring(
+                    start, matcher.start())));
+                expression.append(ParameterMatchers.ANY_VALUE);
+                start = matcher.end();
+            }
+            expression.append(ParameterMatchers.quote(path.substring(start)));
+            expression.append("(\\?.*)?");
+            untyped = Pattern.compile(expression.toString());
+            this.untyped = untyped;
+        }
+        return untyped.matcher(regex).matches();
+    }
+
+    private Segment compile(String segment, int depth,
+        Map<String, Parameter> parameters) {
+        Matcher matcher = PARAMETER.matcher(segment);
+        if (!matcher.find()) {
+            return new Segment(segment, ParameterMatchers.quote(segment));
+        }
+
+        StringBuilder expression = new StringBuilder();
+        int start = 0;
+        int index = 0;
+        do {
+            expression.append(ParameterMatchers.quote(segment.substring(start,
+                matcher.start())));
+            expression.append(ParameterMatchers.segmentExpression(
+                parameters.get(matcher.group(1)), "s" + depth + "p" + index++));
+            start = matcher.end();
+        } while (matcher.find());
+        expression.append(ParameterMatchers.quote(segment.substring(start)));
+
+        return new Segment(null, expression.toString());
+    }
+
+    /**
+     * Segment of path, either literal or matching the values of the path
+     * parameter(s) within it.
+     */
+    static class Segment {
+
+        /*
+         * Literal text of segment, null for templated segment
+         */
+        private final String literal;
+
+        private final String regularExpression;
+
+        private final Pattern pattern;
+
+        private Segment(String literal, String regularExpression) {
+            this.literal = literal;
+            this.regularExpression = regularExpression;
+            this.pattern = literal == null ? ParameterMatchers
+                .compile(regularExpression) : null;
+        }
+
+        boolean isLiteral() {
+            return literal != null;
+        }
+
+        String getLiteral() {
+            return literal;
+        }
+
+        String getRegularExpression() {
+            return regularExpression;
+        }
+
+        /**
+         * Returns whether the passed segment of a request path matches this
+         * segment.
+         */
+        boolean matches(String segment) {
+            if (literal != null) {
+                return literal.equals(segment);
+            }
+            return pattern.matcher(segment).matches();
+        }
+    }
+}
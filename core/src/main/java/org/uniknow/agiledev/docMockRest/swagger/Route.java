@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import io.swagger.models.parameters.Parameter;
+import org.uniknow.agiledev.docMockRest.CompiledRequestPattern;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Entry of the `OperationRouter`, the operation reachable on a path together
+ * with the mandatory query parameters it requires.
+ */
+class Route {
+
+    private final String operationId;
+
+    /*
+     * Request pattern of the stub created for the operation, null when
+     * retrieved from the compiled operation
+     */
+    private final CompiledRequestPattern request;
+
+    private final CompiledOperation operation;
+
+    /*
+     * Compiled matchers of mandatory query parameters by name
+     */
+    private final Map<String, Pattern> mandatoryQueryParameters;
+
+    /**
+     * Constructor
+     *
+     * @param operationId
+     *            Identifier of operation
+     * @param request
+     *            Request pattern of the stub created for the operation
+     * @param parameters
+     *            Parameters of the operation
+     */
+    Route(String operationId, RequestPattern request,
+        List<Parameter> parameters) {
+        this(operationId, request, null, parameters);
+    }
+
+    /**
+     * Constructor for route to compiled operation, the request pattern is
+     * only retrieved when needed.
+     */
+    Route(CompiledOperation operation) {
+        this(operation.getDispatchKey(), null, operation, operation
+            .getOperation().getParameters());
+    }
+
+    private Route(String operationId, RequestPattern request,
+        CompiledOperation operation, List<Parameter> parameters) {
+        Map<String, Pattern> mandatory = new LinkedHashMap<>();
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                if (parameter.getRequired()
+                    && "query".equalsIgnoreCase(parameter.getIn())) {
+                    mandatory.put(parameter.getName(), ParameterMatchers
+                        .compile(ParameterMatchers.regularExpression(
+                            parameter, ParameterMatchers.ANY_VALUE)));
+                }
+            }
+        }
+
+        this.operationId = operationId;
+        this.request = request != null ? new CompiledRequestPattern(request)
+            : null;
+        this.operation = operation;
+        this.mandatoryQueryParameters = Collections.unmodifiableMap(mandatory);
+    }
+
+    /**
+     * Constructor for operation without parameters
+     */
+    Route(String operationId, RequestPattern request) {
+        this(operationId, request, Collections.<Parameter> emptyList());
+    }
+
+    String getOperationId() {
+        return operationId;
+    }
+
+    RequestPattern getRequest() {
+        return getCompiledRequest().getPattern();
+    }
+
+    /**
+     * Returns request pattern of the operation prepared for matching
+     */
+    CompiledRequestPattern getCompiledRequest() {
+        return operation != null ? operation.getCompiledRequest() : request;
+    }
+
+    /**
+     * Makes sure the stub of the operation has been created
+     */
+    void materialize() {
+        if (operation != null) {
+            operation.getRequest();
+        }
+    }
+
+    boolean hasMandatoryQueryParameters() {
+        return !mandatoryQueryParameters.isEmpty();
+    }
+
+    /**
+     * Returns whether the request contains valid values for all mandatory
+     * query parameters of the operation.
+     */
+    boolean acceptsQuery(Request request) {
+        for (Map.Entry<String, Pattern> mandatory : mandatoryQueryParameters
+            .entrySet()) {
+            QueryParameter parameter = request.queryParameter(mandatory
+                .getKey());
+            if (parameter == null || !parameter.isPresent()
+                || !matchesAny(mandatory.getValue(), parameter.values())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesAny(Pattern pattern, List<String> values) {
+        for (String value : values) {
+            if (pattern.matcher(value).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer.LOG;
+
+/**
+ * Snapshot of a parsed specification and the stub responses loaded for it,
+ * allowing a mock server to start without parsing the specification again.
+ *
+ * The snapshot is keyed by a hash of the content of the specification, the
+ * documents it refers to, the responses file and the body files referenced
+ * by the responses. A snapshot with a different key is ignored.
+ */
+class SpecificationSnapshot {
+
+    /*
+     * Identifies file as snapshot ("MOCK")
+     */
+    private static final int MAGIC = 0x4D4F434B;
+
+    /*
+     * Version of the snapshot format, snapshots of other versions are ignored
+     */
+    private static final int VERSION = 1;
+
+    private final String key;
+
+    private final Swagger specification;
+
+    private final List<StubMapping> responses;
+
+    SpecificationSnapshot(String key, Swagger specification,
+        List<StubMapping> responses) {
+        this.key = key;
+        this.specification = specification;
+        this.responses = Collections.unmodifiableList(responses);
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Swagger getSpecification() {
+        return specification;
+    }
+
+    /**
+     * Returns stub responses, with the content of their body files inlined
+     */
+    List<StubMapping> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Returns key of snapshot for specified specification and responses.
+     *
+     * @param specification
+     *            Content of specification
+     * @param responses
+     *            Content of responses file, null when no responses are loaded
+     */
+    static String key(byte[] specification, byte[] responses)
+        throws IOException {
+        return key(specification, null, responses);
+    }
+
+    /**
+     * Returns key of snapshot for the specification at specified location
+     * and responses. The content of the documents the specification refers
+     * to by external `$ref` is part of the key.
+     *
+     * @param location
+     *            Location of specification, see `url`
+     * @param responses
+     *            Content of responses file, null when no responses are loaded
+     */
+    static String key(URL location, byte[] responses) throws IOException {
+        return key(read(location), location, responses);
+    }
+
+    private static String key(byte[] specification, URL location,
+        byte[] responses) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(VERSION);
+        hasher.putInt(specification.length).putBytes(specification);
+        if (location != null) {
+            putReferences(hasher, location, specification,
+                new HashSet<String>());
+        }
+
+        if (responses != null) {
+            hasher.putInt(responses.length).putBytes(responses);
+
+            // Body files are loaded from the classpath
+            JsonNode mappings = new ObjectMapper().readTree(responses);
+            for (String bodyFileName : mappings.findValuesAsText(
+                "bodyFileName")) {
+                hasher.putString(bodyFileName, StandardCharsets.UTF_8);
+                try (InputStream body = SpecificationSnapshot.class
+                    .getClassLoader().getResourceAsStream(bodyFileName)) {
+                    if (body != null) {
+                        hasher.putBytes(ByteStreams.toByteArray(body));
+                    }
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Adds the content of the documents referred to by external `$ref` of
+     * the document, and of the documents they refer to, to the hash.
+     */
+    private static void putReferences(Hasher hasher, URL location,
+        byte[] content, Set<String> visited) throws IOException {
+        JsonNode document;
+        try {
+            document = Yaml.mapper().readTree(content);
+        } catch (JsonProcessingException invalid) {
+            // Parser reports invalid documents
+            return;
+        }
+        if (document == null) {
+            return;
+        }
+
+        for (String reference : document.findValuesAsText("$ref")) {
+            int fragment = reference.indexOf('#');
+            String name = fragment >= 0 ? reference.substring(0, fragment)
+                : reference;
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            URL referenced = new URL(location, name);
+            if (visited.add(referenced.toString())) {
+                byte[] referencedContent = read(referenced);
+                hasher.putString(referenced.toString(), StandardCharsets.UTF_8);
+                hasher.putInt(referencedContent.length).putBytes(
+                    referencedContent);
+                putReferences(hasher, referenced, referencedContent, visited);
+            }
+        }
+    }
+
+    /**
+     * Returns URL of specification location, which like for the swagger
+     * parser is either a file, a URL or a resource on the classpath.
+     */
+    static URL url(String location) throws IOException {
+        File file = new File(location);
+        if (file.exists()) {
+            return file.toURI().toURL();
+        }
+        try {
+            return new URL(location);
+        } catch (MalformedURLException notUrl) {
+            URL resource = SpecificationSnapshot.class.getClassLoader()
+                .getResource(location.startsWith("/") ? location
+                    .substring(1) : location);
+            if (resource == null) {
+                throw new FileNotFoundException(location);
+            }
+            return resource;
+        }
+    }
+
+    private static byte[] read(URL location) throws IOException {
+        try (InputStream in = location.openStream()) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * Reads snapshot from file.
+     *
+     * @param file
+     *            File containing snapshot
+     * @param key
+     *            Expected key of snapshot
+     * @return snapshot or null when file does not exist, is not readable or
+     *         has been created for other content
+     */
+    static SpecificationSnapshot read(File file, String key) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+            new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                || !key.equals(in.readUTF())) {
+                LOG.info("Snapshot {} is outdated", file);
+                return null;
+            }
+
+            Swagger specification = Json.mapper().readValue(readBlock(in),
+                Swagger.class);
+            StubMapping[] responses = new ObjectMapper().readValue(
+                readBlock(in), StubMapping[].class);
+
+            return new SpecificationSnapshot(key, specification,
+                Arrays.asList(responses));
+        } catch (IOException error) {
+            LOG.warn("Unable to read snapshot " + file, error);
+            return null;
+        }
+    }
+
+    /**
+     * Writes snapshot to file. The snapshot is written to a temporary file
+     * first and moved in place, so concurrently started servers never read a
+     * partially written snapshot.
+     */
+    void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+
+        File temporary = File.createTempFile(file.getName(), ".tmp",
+            directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(key);
+                writeBlock(out, Json.mapper().writeValueAsBytes(specification));
+                writeBlock(out, new ObjectMapper().writeValueAsBytes(responses));
+            }
+            Files.move(temporary.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static byte[] readBlock(DataInputStream in) throws IOException {
+        byte[] block = new byte[in.readInt()];
+        in.readFully(block);
+        return block;
+    }
+
+    private static void writeBlock(DataOutputStream out, byte[] block)
+        throws IOException {
+        out.writeInt(block.length);
+        out.write(block);
+    }
+}
@@ -2,25 +2,46 @@
 
 package org.uniknow.agiledev.docMockRest.swagger;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.tomakehurst.wiremock.client.RemoteMappingBuilder;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
 import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.client.WireMockMappingBuilder;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.standalone.MappingsLoader;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.github.tomakehurst.wiremock.stubbing.StubMappings;
 import io.swagger.models.HttpMethod;
 import io.swagger.models.Operation;
 import io.swagger.models.Path;
 import io.swagger.models.Swagger;
 import io.swagger.models.parameters.Parameter;
+import io.swagger.util.Json;
 import org.apache.http.HttpStatus;
+import org.uniknow.agiledev.docMockRest.StaticAsset;
 import org.uniknow.agiledev.docMockRest.SystemError;
 
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
 import static org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer.LOG;
 
 class StubHelper {
+
+    /*
+     * Number of paths compiled by a single task
+     */
+    private static final int COMPILATION_BATCH = 32;
+
     private final SwaggerMockServer swaggerMockServer;
 
     StubHelper(SwaggerMockServer swaggerMockServer) {
@@ -34,111 +55,314 @@ class StubHelper {
      *            Swagger specification
      */
     void createStubs(@NotNull Swagger specification) {
-        // Remove any previously defined stubs
-        swaggerMockServer.reset();
+        // Create stubs for resources within specification before any of them
+        // is installed
+        CompiledSpecification compiled = compile(specification);
 
         swaggerMockServer.setSpecification(specification);
+        swaggerMockServer.setCompiledSpecification(compiled);
+
+        // Remove any previously defined stubs and install the created ones
+        swaggerMockServer.reset();
+    }
+
+    /**
+     * Installs the default stubs of the compiled specification, after which
+     * the index of the operations is published. When requests are dispatched
+     * by operation the default stubs are shared by all operations, so the
+     * same few stubs are installed for any specification and the operations
+     * of the specification are published at once with the index. The stubs
+     * returned by `when` are created on first use.
+     * 
+     * @param compiled
+     *            Compiled specification
+     */
+    void install(@NotNull CompiledSpecification compiled) {
+        // Dictionaries are filled before they replace the current ones, lazy
+        // operations materialized meanwhile are added again afterwards
+        Map<RequestPattern, Operation> operations = new ConcurrentHashMap<>();
+        putMaterialized(operations, compiled);
+        swaggerMockServer.setCreated(
+            new ConcurrentHashMap<String, RemoteMappingBuilder>(), operations);
+        putMaterialized(operations, compiled);
+
+        LOG.info("Installing {} stubs for {} operations", compiled
+            .getMappings().size(), compiled.getOperations().size());
+        swaggerMockServer.getWireMockServer().loadMappingsUsing(
+            new StubMappingsLoader(compiled.getMappings()));
+
+        // Requests are dispatched to the installed stubs from now on
+        swaggerMockServer.setRouter(compiled.getRouter());
+    }
+
+    private void putMaterialized(Map<RequestPattern, Operation> operations,
+        CompiledSpecification compiled) {
+        for (CompiledOperation operation : compiled.getOperations()) {
+            // Lazy operation is added on first use
+            if (operation.isMaterialized()) {
+                operations.put(operation.getRequest(), operation
+                    .getOperation());
+            }
+        }
+    }
+
+    /**
+     * Returns the stub of the operation as returned by `when`, creating it
+     * when not done since the stubs were installed.
+     */
+    RemoteMappingBuilder getStub(@NotNull CompiledOperation operation) {
+        // Creating the stub of a lazy operation adds it to the dictionary
+        operation.getRequest();
+
+        return swaggerMockServer.getCreatedStubs().computeIfAbsent(operation
+            .getOperationId(), id -> createOperationStub(operation
+            .getMethod(), operation.getPath(), operation.getOperation()));
+    }
+
+    /**
+     * Creates the stub of a lazy operation and adds it to the dictionary of
+     * stubs of the mock server.
+     *
+     * @return request pattern of the created stub
+     */
+    RequestPattern materialize(@NotNull CompiledOperation operation) {
+        LOG.debug("Creating stub for operation {} on first use",
+            operation.getDispatchKey());
+        RemoteMappingBuilder stub = createOperationStub(operation.getMethod(),
+            operation.getPath(), operation.getOperation());
+
+        putStub(operation.getOperationId(), stub);
+        return stub.build().getRequest();
+    }
+
+    /**
+     * Adds operation of which the stub has been created to the dictionary of
+     * operations of the mock server. Called after the operation is marked
+     * as materialized, so the operation is either added to the dictionary
+     * being installed or found by `install`.
+     */
+    void materialized(@NotNull CompiledOperation operation) {
+        swaggerMockServer.getCreatedOperations().put(operation.getRequest(),
+            operation.getOperation());
+    }
 
-        // Create stubs for resources within specification
-        stubPaths(specification);
+    private void putStub(String operationId, RemoteMappingBuilder stub) {
+        // Operations without identifier can't be retrieved by `when`
+        if (operationId != null) {
+            swaggerMockServer.getCreatedStubs().put(operationId, stub);
+        }
     }
 
     /**
-     * Stub the operations as specified within specification.
+     * Adds already created stubs, like the stub responses of a snapshot, to
+     * the mock server.
+     */
+    void load(@NotNull List<StubMapping> mappings) {
+        swaggerMockServer.getWireMockServer().loadMappingsUsing(
+            new StubMappingsLoader(mappings));
+    }
+
+    /**
+     * Creates the stubs for the operations as specified within
+     * specification.
      * 
      * @param specification
      *            Swagger specification
+     * @return compiled specification
      */
-    private void stubPaths(Swagger specification) {
+    CompiledSpecification compile(@NotNull Swagger specification) {
+        OperationRouter router = new OperationRouter();
+        List<CompiledOperation> operations;
 
         if (specification.getPaths() != null
             && !specification.getPaths().isEmpty()) {
-            for (Map.Entry<String, Path> paths : specification.getPaths()
-                .entrySet()) {
-                LOG.debug("Processing operation(s) at path {}", paths.getKey());
-                //path里面有参数作为不同的path ->
-                //form http://swagger.io/specification/#pathTemplating -
-                //Path templating refers to the usage of curly braces ({}) to mark a section of a URL path as replaceable using path parameters.
-
-                stubPath(paths.getKey(), paths.getValue());
+            List<Map.Entry<String, Path>> paths = new ArrayList<>(
+                specification.getPaths().entrySet());
+
+            // Paths are compiled independently, results are merged in the
+            // order of the paths within the specification
+            int threads = swaggerMockServer.getCompilationThreads();
+            if (threads > 1 && paths.size() > COMPILATION_BATCH) {
+                LOG.debug("Compiling {} paths using {} threads",
+                    paths.size(), threads);
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    operations = pool.invoke(new CompilePaths(paths, 0,
+                        paths.size()));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                operations = compilePaths(paths, 0, paths.size());
             }
         } else {
             LOG.warn("No operations found. Make sure that the annotated classes are on the classpath of the server.");
+            operations = new ArrayList<>();
+        }
+
+        for (CompiledOperation operation : operations) {
+            router.add(RequestMethod.fromString(operation.getMethod().name()),
+                operation.getPath(), new Route(operation));
+        }
+
+        List<StubMapping> defaults = new ArrayList<>();
+        if (swaggerMockServer.isOperationDispatch()) {
+            // Dispatched operations share their default stubs, so the stubs
+            // installed don't depend on the operations of the specification
+            defaults.addAll(createSharedDispatchedStubs());
+        }
+        for (RemoteMappingBuilder stub : createSpecificationStubs(
+            specification)) {
+            defaults.add(stub.build());
+        }
+        return new CompiledSpecification(specification, operations, router,
+            defaults);
+    }
+
+    /**
+     * Creates stubs returning the specification as JSON document
+     */
+    private List<RemoteMappingBuilder> createSpecificationStubs(
+        Swagger specification) {
+        try {
+            return new StaticAsset(Json.mapper().writeValueAsBytes(
+                specification), MediaType.APPLICATION_JSON).stubs(
+                SwaggerMockServer.SPECIFICATION_PATH);
+        } catch (JsonProcessingException error) {
+            throw new SystemError(error);
+        }
+    }
+
+    /**
+     * Compiles the operations of the paths within specified range
+     */
+    private List<CompiledOperation> compilePaths(
+        List<Map.Entry<String, Path>> paths, int from, int to) {
+        List<CompiledOperation> operations = new ArrayList<>();
+        for (Map.Entry<String, Path> path : paths.subList(from, to)) {
+            LOG.debug("Processing operation(s) at path {}", path.getKey());
+            //path里面有参数作为不同的path ->
+            //form http://swagger.io/specification/#pathTemplating -
+            //Path templating refers to the usage of curly braces ({}) to mark a section of a URL path as replaceable using path parameters.
+
+            compilePath(operations, path.getKey(), path.getValue());
         }
+        return operations;
     }
 
-    private void stubPath(String url, Path path) {
-        stubOperation(HttpMethod.GET, url, path.getGet());
-        stubOperation(HttpMethod.PUT, url, path.getPut());
-        stubOperation(HttpMethod.POST, url, path.getPost());
-        stubOperation(HttpMethod.DELETE, url, path.getDelete());
+    private void compilePath(List<CompiledOperation> operations, String url,
+        Path path) {
+        addOperation(operations, compileOperation(HttpMethod.GET, url,
+            path.getGet()));
+        addOperation(operations, compileOperation(HttpMethod.PUT, url,
+            path.getPut()));
+        addOperation(operations, compileOperation(HttpMethod.POST, url,
+            path.getPost()));
+        addOperation(operations, compileOperation(HttpMethod.DELETE, url,
+            path.getDelete()));
     }
 
-    private void stubOperation(HttpMethod method, String url,
+    private void addOperation(List<CompiledOperation> operations,
+        CompiledOperation operation) {
+        if (operation != null) {
+            operations.add(operation);
+        }
+    }
+
+    private CompiledOperation compileOperation(HttpMethod method, String url,
         Operation operation) {
         if (operation != null) {
-            LOG.info("Creating stub for [{}]:{}", method, url);
-            RemoteMappingBuilder stub = createStub(method, url);
-
-            // TODO: Add matching of query parameters and/or headers
-            // TODO: path 里的参数如何？
-            for (Parameter parameter : operation.getParameters()) {
-                LOG.debug("Processing parameter {}", parameter.getIn());
-                if (parameter.getRequired()) {
-                    if (parameter.getIn().equalsIgnoreCase("query")) {
-                        stub.withQueryParam(parameter.getName(), WireMock
-                            .matching(createRegularExpression(parameter
-                                .getPattern())));
-                    }
-                }
-            }
-            //TODO 在这里添加MockResponse -
-            // 制造com.github.tomakehurst.wiremock.http.ResponseDefinition
-            // 装进去 -
-            // Create default response for stub
-            stub.willReturn(
-                WireMock.aResponse().withStatus(HttpStatus.SC_NOT_IMPLEMENTED)
-                    .withHeader("Content-Type", "text/plain")
-                    .withHeader("Cache-Control", "no-cache")
-                    .withBody("No mocked response defined yet")).atPriority(
-                Integer.MAX_VALUE);
+            PathTemplate path = new PathTemplate(url,
+                operation.getParameters());
 
-            // Create response for bad request
-            createResponseBadRequest(method, url, operation);
+            // Operations without identifier are dispatched on their path
+            String dispatchKey = operation.getOperationId() != null ? operation
+                .getOperationId() : method + ":" + url;
 
-            // Add stub to dictionary for later retrieval
-            LOG.info("Adding stub for operation {}", operation.getOperationId());
-            swaggerMockServer.getStubs().put(operation.getOperationId(), stub);
+            if (swaggerMockServer.isLazyStubs()) {
+                return new CompiledOperation(dispatchKey, method, path,
+                    operation, this);
+            }
+
+            LOG.info("Creating stub for [{}]:{}", method, url);
+            RemoteMappingBuilder stub = createOperationStub(method, path,
+                operation);
 
-            // Add operation to dictionary for later retrieval
             // TODO: Instead of creating own key, use request pattern
             // TODO 有问题，operation 是有id的，为何不用？
             // String urlExpression = method + ":" + url;
             RequestPattern request = stub.build().getRequest();
-            LOG.info("Adding operation {} for request {}",
+            LOG.debug("Created operation {} for request {}",
                 operation.getOperationId(), request);
-            swaggerMockServer.getOperations().put(request, operation);
 
-            // Create default stub for operation
-            swaggerMockServer.getWireMockServer().stubFor(stub);
+            List<StubMapping> mappings = new ArrayList<>(2);
+            if (!swaggerMockServer.isOperationDispatch()) {
+                // Create response for bad request
+                createResponseBadRequest(mappings, method, path, operation);
+
+                // Create default stub for operation
+                mappings.add(stub.build());
+            }
+
+            return new CompiledOperation(dispatchKey, method, path,
+                operation, request, mappings);
+        }
+        return null;
+    }
+
+    /**
+     * Creates stub for operation, the stub is matched by URL and mandatory
+     * query parameters and returns the default response.
+     */
+    private RemoteMappingBuilder createOperationStub(HttpMethod method,
+        PathTemplate path, Operation operation) {
+        RemoteMappingBuilder stub = createStub(method, path);
 
+        // TODO: Add matching of headers
+        for (Parameter parameter : operation.getParameters()) {
+            if (parameter.getRequired()) {
+                if (parameter.getIn().equalsIgnoreCase("query")) {
+                    stub.withQueryParam(parameter.getName(), WireMock
+                        .matching(createRegularExpression(parameter)));
+                }
+            }
         }
+        //TODO 在这里添加MockResponse -
+        // 制造com.github.tomakehurst.wiremock.http.ResponseDefinition
+        // 装进去 -
+        // Create default response for stub
+        stub.willReturn(createResponseNotImplemented()).atPriority(
+            Integer.MAX_VALUE);
+
+        return stub;
     }
 
     /**
-     * Creates stub for specified URL
+     * Creates default stubs matching the requests the `OperationDispatcher`
+     * dispatches to any operation.
      */
-    private RemoteMappingBuilder createStub(HttpMethod method, String url) {
-        // Replace path parameter place holders by regular expression.
-        // TODO: Replace . (match any character) by proper regular
-        // expression based on type parameter.
-        // 这里处理掉了path template 参数
-        url = url.replaceAll("\\{.*\\}", ".*");
+    private List<StubMapping> createSharedDispatchedStubs() {
+        List<StubMapping> mappings = new ArrayList<>(2);
+        mappings.add(new WireMockMappingBuilder(OperationDispatcher.NAME,
+            OperationDispatcher.parameters(OperationDispatcher.BAD_REQUEST))
+            .willReturn(createResponseBadRequest())
+            .atPriority(Integer.MAX_VALUE).build());
+        mappings.add(new WireMockMappingBuilder(OperationDispatcher.NAME,
+            OperationDispatcher.parameters(OperationDispatcher.DEFAULT))
+            .willReturn(createResponseNotImplemented())
+            .atPriority(Integer.MAX_VALUE).build());
+        return mappings;
+    }
 
-        // Make sure that url also matches requests including query
-        // parameters
-        // 替换可能跟wiremock语法有关。
-        url = url + "(\\?.*)?";
+    /**
+     * Creates stub for specified path
+     */
+    private RemoteMappingBuilder createStub(HttpMethod method,
+        PathTemplate path) {
+        // Path parameter place holders are replaced by regular expression
+        // based on type parameter. Make sure that url also matches requests
+        // including query parameters
+        String url = path.getRegularExpression() + "(\\?.*)?";
 
         RemoteMappingBuilder stub;
         switch (method) {
@@ -170,28 +394,42 @@ class StubHelper {
      * Creates default response for requests without mandatory parameters or
      * missing headers.
      */
-    private void createResponseBadRequest(HttpMethod method, String url,
-        Operation operation) {
+    private void createResponseBadRequest(List<StubMapping> mappings,
+        HttpMethod method, PathTemplate path, Operation operation) {
         if ((operation != null) && hasMandatoryQueryParameters(operation)) {
 
             LOG.info("Creating default response for bad request [{}]:{}",
-                method, url);
-            RemoteMappingBuilder stub = createStub(method, url);
+                method, path.getPath());
+            RemoteMappingBuilder stub = createStub(method, path);
 
             // Create default response for stub
-            stub.willReturn(
-                aResponse()
-                    .withStatus(HttpStatus.SC_BAD_REQUEST)
-                    .withHeader("Content-Type", "text/plain")
-                    .withHeader("Cache-Control", "no-cache")
-                    .withBody(
-                        "Invalid Request, missing mandatory parameter or header"))
-                .atPriority(Integer.MAX_VALUE);
+            stub.willReturn(createResponseBadRequest()).atPriority(
+                Integer.MAX_VALUE);
 
-            swaggerMockServer.wireMockServer.stubFor(stub);
+            mappings.add(stub.build());
         }
     }
 
+    /**
+     * Returns default response for operations
+     */
+    private ResponseDefinitionBuilder createResponseNotImplemented() {
+        return aResponse().withStatus(HttpStatus.SC_NOT_IMPLEMENTED)
+            .withHeader("Content-Type", "text/plain")
+            .withHeader("Cache-Control", "no-cache")
+            .withBody("No mocked response defined yet");
+    }
+
+    /**
+     * Returns default response for requests without mandatory parameters
+     */
+    private ResponseDefinitionBuilder createResponseBadRequest() {
+        return aResponse().withStatus(HttpStatus.SC_BAD_REQUEST)
+            .withHeader("Content-Type", "text/plain")
+            .withHeader("Cache-Control", "no-cache")
+            .withBody("Invalid Request, missing mandatory parameter or header");
+    }
+
     /**
      * Returns whether the Operation has mandatory query parameters.
      */
@@ -205,7 +443,67 @@ class StubHelper {
         return false;
     }
 
-    private String createRegularExpression(String type) {
-        return ".*";
+    /**
+     * Returns regular expression matching the values of the parameter based
+     * on its type.
+     */
+    private String createRegularExpression(Parameter parameter) {
+        return ParameterMatchers.regularExpression(parameter,
+            ParameterMatchers.ANY_VALUE);
+    }
+
+    /**
+     * Compiles range of paths, splitting it into halves compiled in parallel
+     * until the range contains no more than `COMPILATION_BATCH` paths.
+     */
+    private class CompilePaths extends RecursiveTask<List<CompiledOperation>> {
+
+        private final List<Map.Entry<String, Path>> paths;
+        private final int from;
+        private final int to;
+
+        private CompilePaths(List<Map.Entry<String, Path>> paths, int from,
+            int to) {
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<CompiledOperation> compute() {
+            if (to - from <= COMPILATION_BATCH) {
+                return compilePaths(paths, from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            CompilePaths first = new CompilePaths(paths, from, middle);
+            first.fork();
+            List<CompiledOperation> second = new CompilePaths(paths, middle,
+                to).compute();
+
+            // Keep operations in order of paths
+            List<CompiledOperation> operations = first.join();
+            operations.addAll(second);
+            return operations;
+        }
+    }
+
+    /**
+     * Adds already created stubs to the stubs of the WireMock server
+     */
+    private static class StubMappingsLoader implements MappingsLoader {
+
+        private final List<StubMapping> mappings;
+
+        private StubMappingsLoader(List<StubMapping> mappings) {
+            this.mappings = mappings;
+        }
+
+        @Override
+        public void loadMappingsInto(StubMappings stubMappings) {
+            for (StubMapping mapping : mappings) {
+                stubMappings.addMapping(mapping);
+            }
+        }
     }
 }
\ No newline at end of file
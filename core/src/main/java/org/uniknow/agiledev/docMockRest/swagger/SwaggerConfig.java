@@ -1,13 +1,26 @@
 
 package org.uniknow.agiledev.docMockRest.swagger;
 
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import com.google.common.io.ByteStreams;
 import io.swagger.jaxrs.Reader;
 import io.swagger.models.Swagger;
 import io.swagger.parser.SwaggerParser;
+import org.uniknow.agiledev.docMockRest.ContainerThreads;
 import org.uniknow.agiledev.docMockRest.JsonIOResponsesMappingsLoader;
+import org.uniknow.agiledev.docMockRest.RequestJournal;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer.LOG;
@@ -69,10 +82,103 @@ public class SwaggerConfig {
         return this;
     }
 
+    /**
+     * Sets whether requests are dispatched to the default stubs of operations
+     * by path lookup (default) instead of matching the URL of every stub.
+     */
+    public SwaggerConfig setOperationDispatch(boolean operationDispatch) {
+        this.operationDispatch = operationDispatch;
+        return this;
+    }
+
+    /**
+     * Sets number of threads compiling the stubs of the specification. By
+     * default one thread per available processor is used.
+     */
+    public SwaggerConfig setCompilationThreads(int compilationThreads) {
+        this.compilationThreads = compilationThreads;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of request patterns of which the matching
+     * operation is cached, 0 disables the cache.
+     */
+    public SwaggerConfig setOperationCacheSize(int operationCacheSize) {
+        this.operationCacheSize = operationCacheSize;
+        return this;
+    }
+
+    /**
+     * Sets whether the stubs of operations are created the first time a
+     * request is dispatched to them instead of at startup. Reduces startup
+     * time and memory for large specifications of which only a few
+     * operations are used. Requires operation dispatch.
+     */
+    public SwaggerConfig setLazyStubs(boolean lazyStubs) {
+        this.lazyStubs = lazyStubs;
+        return this;
+    }
+
+    /**
+     * Sets file in which the parsed specification and responses are kept.
+     * When the specification and responses did not change since the
+     * snapshot was written, the server starts from the snapshot instead of
+     * parsing the specification. Requires the swagger file location.
+     */
+    public SwaggerConfig setSnapshotLocation(String snapshotLocation) {
+        this.snapshotLocation = snapshotLocation;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of threads handling requests, which bounds the
+     * number of delayed requests in flight. Threads are started on demand.
+     */
+    public SwaggerConfig setContainerThreads(int containerThreads) {
+        this.containerThreads = containerThreads;
+        return this;
+    }
+
+    /**
+     * Sets latency with which operation responds, overriding the latency
+     * specified within the specification. Kept when the server is reset.
+     */
+    public SwaggerConfig setLatency(String operationId, Latency latency) {
+        latencies.put(operationId, latency);
+        return this;
+    }
+
+    /**
+     * Sets journal recording the requests served, by default a journal
+     * retaining the last `RequestJournal.DEFAULT_CAPACITY` requests.
+     */
+    public SwaggerConfig setRequestJournal(RequestJournal requestJournal) {
+        this.requestJournal = requestJournal;
+        return this;
+    }
+
     private String swaggerFileLocation;
     private String responseFileLocation;
     private String swaggerPrefix;
     private URL responseFileUrl;
+    private boolean operationDispatch = true;
+    private boolean lazyStubs = false;
+    private Integer operationCacheSize;
+    private Integer compilationThreads;
+    private String snapshotLocation;
+    private int containerThreads = ContainerThreads.DEFAULT;
+    private final Map<String, Latency> latencies = new LinkedHashMap<>();
+    private RequestJournal requestJournal;
+
+    int getContainerThreads() {
+        return containerThreads;
+    }
+
+    RequestJournal getRequestJournal() {
+        return requestJournal != null ? requestJournal : RequestJournal
+            .create();
+    }
 
     void precessServer(SwaggerMockServer server) throws IOException {
         System.setProperty("debugParser","true");
@@ -82,6 +188,26 @@ public class SwaggerConfig {
         if (null != responseFileLocation && null != responseFileUrl)
             throw new IllegalArgumentException("both response location and url");
 
+        if (lazyStubs && !operationDispatch)
+            throw new IllegalArgumentException("lazy stubs without operation dispatch");
+
+        server.setOperationDispatch(operationDispatch);
+        server.setLazyStubs(lazyStubs);
+        if (null != operationCacheSize) {
+            server.setOperationCacheSize(operationCacheSize);
+        }
+        if (null != compilationThreads) {
+            server.setCompilationThreads(compilationThreads);
+        }
+        server.setConfiguredLatencies(latencies);
+
+        if (null != snapshotLocation) {
+            if (null == swaggerFileLocation)
+                throw new IllegalArgumentException("snapshot without file location");
+            precessServerFromSnapshot(server);
+            return;
+        }
+
         if (null != swaggerFileLocation) {
             Swagger swagger = new SwaggerParser().read(swaggerFileLocation);
             server.stubHelper.createStubs(swagger);
@@ -106,4 +232,54 @@ public class SwaggerConfig {
                     responseFileLocation));
         }
     }
+
+    /**
+     * Creates stubs from snapshot when it matches the specification and
+     * responses, otherwise parses the specification and writes a new
+     * snapshot.
+     */
+    private void precessServerFromSnapshot(SwaggerMockServer server)
+        throws IOException {
+        byte[] responses = null;
+        if (null != responseFileUrl) {
+            try (InputStream in = responseFileUrl.openStream()) {
+                responses = ByteStreams.toByteArray(in);
+            }
+        }
+        if (null != responseFileLocation) {
+            responses = Files.readAllBytes(Paths.get(responseFileLocation));
+        }
+
+        File file = new File(snapshotLocation);
+        String key = SpecificationSnapshot.key(
+            SpecificationSnapshot.url(swaggerFileLocation), responses);
+        SpecificationSnapshot snapshot = SpecificationSnapshot.read(file, key);
+
+        if (snapshot != null) {
+            LOG.info("Loading specification and responses from snapshot {}",
+                file);
+            server.stubHelper.createStubs(snapshot.getSpecification());
+            server.stubHelper.load(snapshot.getResponses());
+        } else {
+            Swagger swagger = new SwaggerParser().read(swaggerFileLocation);
+            server.stubHelper.createStubs(swagger);
+
+            List<StubMapping> mappings = Collections.emptyList();
+            if (null != responses) {
+                LOG.info("Loading responses of {}",
+                    null != responseFileUrl ? responseFileUrl
+                        : responseFileLocation);
+                mappings = new JsonIOResponsesMappingsLoader(server,
+                    new ByteArrayInputStream(responses)).readMappings();
+                server.stubHelper.load(mappings);
+            }
+
+            LOG.info("Writing snapshot {}", file);
+            try {
+                new SpecificationSnapshot(key, swagger, mappings).write(file);
+            } catch (IOException error) {
+                LOG.warn("Unable to write snapshot " + file, error);
+            }
+        }
+    }
 }
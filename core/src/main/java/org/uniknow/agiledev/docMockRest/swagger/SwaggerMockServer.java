@@ -5,21 +5,29 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.RemoteMappingBuilder;
 import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
 import com.github.tomakehurst.wiremock.core.ConfigurationException;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.matching.RequestPattern;
 import io.swagger.models.Operation;
+import io.swagger.models.Path;
 import io.swagger.models.Swagger;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uniknow.agiledev.dbc4java.Validated;
-import org.uniknow.agiledev.docMockRest.RequestPatternMatcher;
+import org.uniknow.agiledev.docMockRest.CompiledRequestPattern;
+import org.uniknow.agiledev.docMockRest.ContainerThreads;
+import org.uniknow.agiledev.docMockRest.RequestJournal;
 
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.NotFoundException;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 
@@ -30,6 +38,24 @@ import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMoc
 public class SwaggerMockServer {
 
     final static Logger LOG = LoggerFactory.getLogger(SwaggerMockServer.class);
+
+    /**
+     * Path at which the specification is served as JSON document
+     */
+    public static final String SPECIFICATION_PATH = "/swagger.json";
+
+    /**
+     * Path at which the number of calls per operation and status code is
+     * served as JSON document
+     */
+    public static final String COUNTERS_PATH = "/__mock/counters";
+
+    /**
+     * Path at which the request rate, errors and time spent per operation
+     * are served as JSON document, in the text format of Prometheus below
+     * `/prometheus` and reset by a POST below `/reset`
+     */
+    public static final String METRICS_PATH = "/__mock/metrics";
     final StubHelper stubHelper = new StubHelper(this);
 
     /*
@@ -38,20 +64,112 @@ public class SwaggerMockServer {
     WireMockServer wireMockServer;
 
     /**
-     * Maps operation ID to matching stub
+     * Maps operation ID to matching stub, replaced as a whole when the stubs
+     * are installed
+     */
+    private volatile Map<String, RemoteMappingBuilder> stubs =
+        new ConcurrentHashMap<>();
+
+    /**
+     * Maps Request expression to matching Operation, replaced as a whole
+     * when the stubs are installed
      */
-    private final Map<String, RemoteMappingBuilder> stubs = new HashMap<>();
+    private volatile Map<RequestPattern, Operation> operations =
+        new ConcurrentHashMap<>();
 
     /**
-     * Maps Request expression to matching Operation
+     * Index on path segments of the request patterns within operations
+     */
+    private volatile OperationRouter router = new OperationRouter();
+
+    /*
+     * Operations matching previously looked up request patterns
+     */
+    private int operationCacheSize = OperationCache.DEFAULT_SIZE;
+    private volatile OperationCache operationCache = new OperationCache(
+        OperationCache.DEFAULT_SIZE);
+
+    /*
+     * Dispatches requests to the default stubs of operations
+     */
+    private final OperationDispatcher dispatcher = new OperationDispatcher(
+        this);
+
+    /*
+     * Requests served by the server
+     */
+    private final RequestJournal requestJournal;
+
+    /*
+     * Number of requests served per operation
+     */
+    private final OperationCounters operationCounters =
+        new OperationCounters(request -> dispatcher.resolve(request)
+            .getOperationId());
+
+    /*
+     * Time spent serving requests per operation, registered as last request
+     * listener
      */
-    private final Map<RequestPattern, Operation> operations = new HashMap<>();
+    private final OperationMetrics operationMetrics = new OperationMetrics(
+        request -> dispatcher.resolve(request),
+        request -> dispatcher.release(request));
+
+    /*
+     * Endpoints reporting on the requests served
+     */
+    private final AdminEndpoints adminEndpoints = new AdminEndpoints(this);
+
+    /*
+     * Delays responses of operations having a latency
+     */
+    private final LatencyTransformer latencyTransformer =
+        new LatencyTransformer(this);
+
+    /*
+     * Latencies set for operations by identifier
+     */
+    private final Map<String, Latency> latencies = new ConcurrentHashMap<>();
+
+    /*
+     * Latencies configured for operations by identifier, kept on reset
+     */
+    private volatile Map<String, Latency> configuredLatencies = Collections
+        .emptyMap();
+
+    /*
+     * Latencies specified within the specification by operation identifier
+     */
+    private volatile Map<String, Latency> specifiedLatencies = Collections
+        .emptyMap();
+
+    /*
+     * Whether default stubs are matched by the operation dispatcher instead
+     * of their URL
+     */
+    private boolean operationDispatch = true;
+
+    /*
+     * Whether stubs of operations are created on first use
+     */
+    private boolean lazyStubs = false;
+
+    /*
+     * Number of threads compiling the stubs of the specification
+     */
+    private int compilationThreads = Runtime.getRuntime()
+        .availableProcessors();
 
     /*
      * Contains Swagger configuration as mocked by this server
      */
     private Swagger specification;
 
+    /*
+     * Contains stubs created for the specification
+     */
+    private volatile CompiledSpecification compiled;
+
     /**
      * Default constructor for testing purposes only
      */
@@ -63,10 +181,40 @@ public class SwaggerMockServer {
      * Creates instance of MockServer listening on speficied port
      */
     public SwaggerMockServer(int port) {
+        this(port, ContainerThreads.DEFAULT);
+    }
+
+    /**
+     * Creates instance of MockServer listening on specified port, handling
+     * requests by specified number of threads
+     */
+    SwaggerMockServer(int port, int containerThreads) {
+        this(port, containerThreads, RequestJournal.create());
+    }
+
+    /**
+     * Creates instance of MockServer listening on specified port, handling
+     * requests by specified number of threads and recording them within
+     * specified journal
+     */
+    SwaggerMockServer(int port, int containerThreads,
+        RequestJournal requestJournal) {
         LOG.info("Starting MockServer listening on port {}", port);
-        wireMockServer = new WireMockServer(wireMockConfig().port(port)
-            .notifier(new Slf4jNotifier(true)));
+        this.requestJournal = requestJournal;
+        requestJournal.attach(request -> dispatcher.resolve(request)
+            .getOperationId(), request -> dispatcher.resolve(request)
+            .getStarted());
+
+        // Requests are recorded by bounded journal instead of WireMock
+        wireMockServer = new WireMockServer(ContainerThreads.apply(
+            wireMockConfig().port(port), containerThreads)
+            .disableRequestJournal().notifier(new Slf4jNotifier(true))
+            .extensions(dispatcher, latencyTransformer, adminEndpoints));
+        wireMockServer.addMockServiceRequestListener(requestJournal);
+        wireMockServer.addMockServiceRequestListener(operationCounters);
+        wireMockServer.addMockServiceRequestListener(operationMetrics);
         wireMockServer.start();
+        installAdminEndpoints();
 
         // Runtime.getRuntime().addShutdownHook(new Thread() {
         // @Override
@@ -78,7 +226,7 @@ public class SwaggerMockServer {
     }
 
     public SwaggerMockServer(SwaggerConfig config, int port) throws IOException {
-        this(port);
+        this(port, config.getContainerThreads(), config.getRequestJournal());
         config.precessServer(this);
     }
 
@@ -94,16 +242,63 @@ public class SwaggerMockServer {
     }
 
     /**
-     * Reset mock server removing all previously defined stubs
+     * Reset mock server removing all previously defined stubs. The default
+     * stubs of the operations within the specification are reinstalled.
+     * WireMock can't remove the stubs added by the user on their own, its
+     * stubs are cleared after which the few default stubs are reinstalled
+     * first.
      */
     public void reset() {
-        stubs.clear();
+        stubs = new ConcurrentHashMap<>();
+        latencies.clear();
 
         wireMockServer.resetMappings();
-        wireMockServer.resetRequests();
+        CompiledSpecification compiled = this.compiled;
+        if (compiled != null) {
+            stubHelper.install(compiled);
+        }
+        installAdminEndpoints();
+
+        requestJournal.reset();
+        operationCounters.reset();
+        operationMetrics.reset();
         wireMockServer.resetScenarios();
     }
 
+    private void installAdminEndpoints() {
+        for (RemoteMappingBuilder stub : adminEndpoints.stubs()) {
+            wireMockServer.stubFor(stub);
+        }
+    }
+
+    /**
+     * Returns number of requests served for operation since the server was
+     * started or reset, without scanning the request journal.
+     * 
+     * @param operationID
+     *            Identifier of operation
+     */
+    public long callCount(@NotNull @NotEmpty @NotBlank String operationID) {
+        return operationCounters.count(operationID);
+    }
+
+    /**
+     * Returns number of requests served for operation with specified status
+     * code since the server was started or reset.
+     */
+    public long callCount(@NotNull @NotEmpty @NotBlank String operationID,
+        int status) {
+        return operationCounters.count(operationID, status);
+    }
+
+    OperationCounters getOperationCounters() {
+        return operationCounters;
+    }
+
+    OperationMetrics getOperationMetrics() {
+        return operationMetrics;
+    }
+
     /**
      * Returns stub for specified operation
      * 
@@ -113,15 +308,76 @@ public class SwaggerMockServer {
      */
     public RemoteMappingBuilder when(
         @NotNull @NotEmpty @NotBlank String operationID) {
+        // Stubs of operations are created on first use
+        CompiledSpecification compiled = this.compiled;
+        RemoteMappingBuilder stub = stubs.get(operationID);
+        if (compiled != null && stub == null) {
+            CompiledOperation operation = compiled.getOperation(operationID);
+            if (operation != null) {
+                stub = stubHelper.getStub(operation);
+            }
+        }
+
         // Get URL of operation
-        if (stubs.containsKey(operationID)) {
-            return stubs.get(operationID);
+        if (stub != null) {
+            return stub;
         } else {
             throw new NotFoundException(
                 "Specified operation could not be found");
         }
     }
 
+    /**
+     * Sets latency with which operation responds, overriding the latency
+     * configured or specified within the specification. Removed by
+     * `reset()`.
+     * 
+     * @param operationID
+     *            Identifier of operation
+     * @param latency
+     *            Latency of operation, null to remove latency set before
+     */
+    public void setLatency(@NotNull @NotEmpty @NotBlank String operationID,
+        Latency latency) {
+        if (latency != null) {
+            latencies.put(operationID, latency);
+        } else {
+            latencies.remove(operationID);
+        }
+    }
+
+    /**
+     * Sets latencies configured for operations by identifier, overriding the
+     * latencies specified within the specification. Unlike latencies set by
+     * `setLatency`, these are kept by `reset()`.
+     */
+    void setConfiguredLatencies(Map<String, Latency> configuredLatencies) {
+        this.configuredLatencies = new HashMap<>(configuredLatencies);
+    }
+
+    /**
+     * Returns latency of the operation to which request is dispatched, null
+     * if none
+     */
+    Latency getLatency(Request request) {
+        Map<String, Latency> configured = configuredLatencies;
+        Map<String, Latency> specified = specifiedLatencies;
+        if (latencies.isEmpty() && configured.isEmpty()
+            && specified.isEmpty()) {
+            return null;
+        }
+
+        String operationId = dispatcher.resolve(request).getOperationId();
+        if (operationId == null) {
+            return null;
+        }
+        Latency latency = latencies.get(operationId);
+        if (latency == null) {
+            latency = configured.get(operationId);
+        }
+        return latency != null ? latency : specified.get(operationId);
+    }
+
     /**
      * Updates definition for stub
      */
@@ -149,15 +405,63 @@ public class SwaggerMockServer {
     // 这块由他去吧。
     public Operation getOperation(@NotNull RequestPattern request) {
 
-        String requestUrl = request.getUrl() == null ? request.getUrlPattern()
+        // Stubs retrieved by when() carry the request pattern of the operation
+        Operation operation = operations.get(request);
+        if (operation != null) {
+            return operation;
+        }
+
+        // Cache is replaced when index is published, so it has to be
+        // retrieved before the index
+        OperationCache cache = operationCache;
+        if (cache != null) {
+            Optional<Operation> cached = cache.get(request);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+        }
+
+        operation = findOperation(request);
+        if (cache != null) {
+            cache.put(request, operation);
+        }
+        return operation;
+    }
+
+    /**
+     * Returns operation matching the specified request using the index of
+     * operations.
+     */
+    private Operation findOperation(RequestPattern request) {
+        String requestUrl = request.getUrl() == null ? request.getUrlPath()
             : request.getUrl();
+        CompiledRequestPattern compiledRequest = CompiledRequestPattern
+            .request(request);
 
-        RequestPatternMatcher matcher = new RequestPatternMatcher();
+        if (requestUrl != null) {
+            // Only the operations on the same path need to be matched
+            for (Route route : router.candidates(request.getMethod(),
+                requestUrl)) {
+                if (route.getCompiledRequest().matches(compiledRequest)) {
+                    return operations.get(route.getRequest());
+                }
+            }
+        } else {
+            // URL patterns can't be looked up in the index
+            CompiledSpecification compiled = this.compiled;
+            if (compiled != null) {
+                for (CompiledOperation candidate : compiled.getOperations()) {
+                    if (candidate.getCompiledRequest()
+                        .matches(compiledRequest)) {
+                        return candidate.getOperation();
+                    }
+                }
 
-        // Find Operation that matches the specified Request
-        for (RequestPattern spec : operations.keySet()) {
-            if (matcher.match(spec, request)) {
-                return operations.get(spec);
+                Operation operation = findOperationByTemplate(compiled,
+                    request, compiledRequest);
+                if (operation != null) {
+                    return operation;
+                }
             }
         }
 
@@ -165,6 +469,32 @@ public class SwaggerMockServer {
         return null;
     }
 
+    /**
+     * Returns operation of which the path template is denoted by the URL
+     * regular expression of the request. Stubs written for untyped path
+     * parameters (e.g. /pet/.*) don't match the typed expressions of the
+     * operations.
+     */
+    private Operation findOperationByTemplate(CompiledSpecification compiled,
+        RequestPattern request, CompiledRequestPattern compiledRequest) {
+        String regex = request.getUrlPattern() != null ? request
+            .getUrlPattern() : request.getUrlPathPattern();
+        if (regex == null || request.getMethod() == null) {
+            return null;
+        }
+
+        for (CompiledOperation candidate : compiled.getOperations()) {
+            if (request.getMethod().equals(
+                RequestMethod.fromString(candidate.getMethod().name()))
+                && candidate.getPath().matchedBy(regex)
+                && candidate.getCompiledRequest().matchesParameters(
+                    compiledRequest)) {
+                return candidate.getOperation();
+            }
+        }
+        return null;
+    }
+
     /**
      * Verifies operation exist for specified request
      * 
@@ -175,23 +505,185 @@ public class SwaggerMockServer {
     }
 
     public Map<String, RemoteMappingBuilder> getStubs() {
+        CompiledSpecification compiled = this.compiled;
+        if (compiled != null) {
+            for (CompiledOperation operation : compiled.getOperations()) {
+                if (operation.getOperationId() != null) {
+                    stubHelper.getStub(operation);
+                }
+            }
+        }
         return stubs;
     }
 
     public Map<RequestPattern, Operation> getOperations() {
+        materialize();
         return operations;
     }
 
+    /**
+     * Returns stubs created for operations so far, without creating the
+     * stubs of other operations
+     */
+    Map<String, RemoteMappingBuilder> getCreatedStubs() {
+        return stubs;
+    }
+
+    /**
+     * Returns operations of which the stub has been created so far
+     */
+    Map<RequestPattern, Operation> getCreatedOperations() {
+        return operations;
+    }
+
+    /**
+     * Replaces the stubs and operations, requests don't observe partially
+     * cleared dictionaries
+     */
+    void setCreated(Map<String, RemoteMappingBuilder> stubs,
+        Map<RequestPattern, Operation> operations) {
+        this.operations = operations;
+        this.stubs = stubs;
+    }
+
+    /**
+     * Creates the stubs of all lazy operations not used yet
+     */
+    private void materialize() {
+        CompiledSpecification compiled = this.compiled;
+        if (compiled != null) {
+            for (CompiledOperation operation : compiled.getOperations()) {
+                operation.getRequest();
+            }
+        }
+    }
+
     public Swagger getSpecification() {
         return specification;
     }
 
+    /**
+     * Returns underlying WireMock server. Its request journal is disabled,
+     * verifying or finding requests through it fails with a
+     * `RequestJournalDisabledException`, as do the `/__admin/requests`
+     * endpoints. Use `getRequestJournal()` instead.
+     */
     public WireMockServer getWireMockServer() {
         return wireMockServer;
     }
 
+    /**
+     * Returns journal of the requests served, to be used for verification
+     * instead of the request journal of WireMock which is disabled.
+     */
+    public RequestJournal getRequestJournal() {
+        return requestJournal;
+    }
+
     public void setSpecification(Swagger specification) {
         this.specification = specification;
+        this.specifiedLatencies = specifiedLatencies(specification);
+    }
+
+    /**
+     * Returns latencies specified by the `x-mock-latency` extension of the
+     * operations within specification
+     */
+    private static Map<String, Latency> specifiedLatencies(
+        Swagger specification) {
+        if (specification == null || specification.getPaths() == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Latency> specified = new HashMap<>();
+        for (Path path : specification.getPaths().values()) {
+            for (Operation operation : path.getOperations()) {
+                Object extension = operation.getVendorExtensions().get(
+                    Latency.EXTENSION);
+                if (extension != null && operation.getOperationId() != null) {
+                    specified.put(operation.getOperationId(),
+                        Latency.parse(extension));
+                }
+            }
+        }
+        return specified;
+    }
+
+    void setCompiledSpecification(CompiledSpecification compiled) {
+        this.compiled = compiled;
+    }
+
+    OperationRouter getRouter() {
+        return router;
+    }
+
+    void setRouter(OperationRouter router) {
+        this.router = router;
+
+        // Operations looked up using previous index might have changed
+        operationCache = createOperationCache(operationCacheSize);
+    }
+
+    OperationCache getOperationCache() {
+        return operationCache;
+    }
+
+    /**
+     * Sets maximum number of request patterns of which the matching
+     * operation is cached, 0 disables the cache.
+     */
+    void setOperationCacheSize(int operationCacheSize) {
+        if (operationCacheSize < 0) {
+            throw new IllegalArgumentException(
+                "Size of operation cache may not be negative");
+        }
+        this.operationCacheSize = operationCacheSize;
+        this.operationCache = createOperationCache(operationCacheSize);
+    }
+
+    private static OperationCache createOperationCache(int size) {
+        return size > 0 ? new OperationCache(size) : null;
+    }
+
+    boolean isOperationDispatch() {
+        return operationDispatch;
+    }
+
+    /**
+     * Sets whether default stubs of operations are matched by the operation
+     * dispatcher (default) or by scanning their URL pattern.
+     */
+    void setOperationDispatch(boolean operationDispatch) {
+        this.operationDispatch = operationDispatch;
+    }
+
+    boolean isLazyStubs() {
+        return lazyStubs;
+    }
+
+    /**
+     * Sets whether the stubs of operations are created the first time a
+     * request is dispatched to them instead of when loading the
+     * specification. Requires operation dispatch.
+     */
+    void setLazyStubs(boolean lazyStubs) {
+        this.lazyStubs = lazyStubs;
+    }
+
+    int getCompilationThreads() {
+        return compilationThreads;
+    }
+
+    /**
+     * Sets number of threads compiling the stubs of the paths within the
+     * specification, 1 compiles the paths sequentially.
+     */
+    void setCompilationThreads(int compilationThreads) {
+        if (compilationThreads < 1) {
+            throw new IllegalArgumentException(
+                "Number of compilation threads must be at least 1");
+        }
+        this.compilationThreads = compilationThreads;
     }
 
     // /**
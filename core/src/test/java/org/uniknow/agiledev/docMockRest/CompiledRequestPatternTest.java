@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `CompiledRequestPattern`.
+ */
+public class CompiledRequestPatternTest {
+
+    private final RequestPatternMatcher matcher = new RequestPatternMatcher();
+
+    /**
+     * Verifies compiled pattern matches like `RequestPatternMatcher`
+     */
+    @Test
+    public void testSameResultAsRequestPatternMatcher() {
+        RequestPattern spec = new RequestPatternBuilder(RequestMethod.GET,
+            UrlPattern.fromOneOf(null, "/users/[0-9]+(\\?.*)?", null, null))
+            .withQueryParam("name", matching(".*"))
+            .withHeader("X-Tenant", matching(".*")).build();
+
+        RequestPattern[] requests = {
+            request(RequestMethod.GET, "/users/1", true, true),
+            request(RequestMethod.POST, "/users/1", true, true),
+            request(RequestMethod.GET, "/users/x", true, true),
+            request(RequestMethod.GET, "/users/1", false, true),
+            request(RequestMethod.GET, "/users/1", true, false),
+            request(RequestMethod.GET, "/groups/1", true, true) };
+
+        CompiledRequestPattern compiled = new CompiledRequestPattern(spec);
+        for (RequestPattern request : requests) {
+            assertEquals(matcher.match(spec, request),
+                compiled.matches(CompiledRequestPattern.request(request)));
+        }
+        assertTrue(compiled.matches(CompiledRequestPattern
+            .request(requests[0])));
+    }
+
+    /**
+     * Verifies literal URLs are matched exactly
+     */
+    @Test
+    public void testLiteralUrl() {
+        CompiledRequestPattern compiled = new CompiledRequestPattern(
+            request(RequestMethod.GET, "/users", false, false));
+
+        assertTrue(compiled.matches(CompiledRequestPattern.request(request(
+            RequestMethod.GET, "/users", true, false))));
+        assertFalse(compiled.matches(CompiledRequestPattern.request(request(
+            RequestMethod.GET, "/users/1", false, false))));
+    }
+
+    /**
+     * Verifies names supplied by requests are not interned, while names of
+     * the specification still are
+     */
+    @Test
+    public void testRequestNamesNotInterned() {
+        for (int i = 0; i < 2 * Long.SIZE; i++) {
+            CompiledRequestPattern.request(new RequestPatternBuilder(
+                RequestMethod.GET, UrlPattern.fromOneOf("/users", null, null,
+                    null)).withQueryParam("unknown" + i, equalTo("x"))
+                .build());
+            assertFalse(CompiledRequestPattern
+                .isInternedQueryParameter("unknown" + i));
+        }
+
+        CompiledRequestPattern compiled = new CompiledRequestPattern(
+            new RequestPatternBuilder(RequestMethod.GET, UrlPattern.fromOneOf(
+                "/users", null, null, null)).withQueryParam("specified",
+                matching(".*")).build());
+        assertTrue(CompiledRequestPattern
+            .isInternedQueryParameter("specified"));
+        assertFalse(compiled.matches(CompiledRequestPattern.request(request(
+            RequestMethod.GET, "/users", true, false))));
+    }
+
+    /**
+     * Verifies literal prefix of regular expressions
+     */
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("/users/", CompiledRequestPattern
+            .literalPrefix("/users/[0-9]+(\\?.*)?"));
+        assertEquals("/user/login.json", CompiledRequestPattern
+            .literalPrefix("/user/login\\.json"));
+        assertEquals("/user", CompiledRequestPattern.literalPrefix("/users?"));
+        assertEquals("/users", CompiledRequestPattern.literalPrefix("/users+"));
+        assertEquals("", CompiledRequestPattern.literalPrefix("/users|/x"));
+        assertEquals("", CompiledRequestPattern.literalPrefix("(?i)/users"));
+        assertEquals("/", CompiledRequestPattern.literalPrefix("/\\d+"));
+    }
+
+    private RequestPattern request(RequestMethod method, String url,
+        boolean query, boolean header) {
+        RequestPatternBuilder builder = new RequestPatternBuilder(method,
+            UrlPattern.fromOneOf(url, null, null, null));
+        if (query) {
+            builder.withQueryParam("name", equalTo("test"));
+        }
+        if (header) {
+            builder.withHeader("X-Tenant", equalTo("test"));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `ConditionalRequests`.
+ */
+public class ConditionalRequestsTest {
+
+    /**
+     * Verifies entity tag only depends on content
+     */
+    @Test
+    public void testEtag() {
+        String etag = ConditionalRequests.etag(bytes("{}"));
+        assertEquals(etag, ConditionalRequests.etag(bytes("{}")));
+        assertNotEquals(etag, ConditionalRequests.etag(bytes("[]")));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag.substring(0, etag.length() - 1) + "-gzip\"",
+            ConditionalRequests.etag(etag, "gzip"));
+    }
+
+    /**
+     * Verifies If-None-Match is evaluated before If-Modified-Since
+     */
+    @Test
+    public void testIfNoneMatch() {
+        String etag = ConditionalRequests.etag(bytes("{}"));
+        String modified = ConditionalRequests.httpDate(0);
+
+        assertTrue(ConditionalRequests.notModified(etag, null, etag, null));
+        assertTrue(ConditionalRequests.notModified("\"x\", W/" + etag, null,
+            etag, null));
+        assertTrue(ConditionalRequests.notModified("*", null, etag, null));
+        assertFalse(ConditionalRequests.notModified("\"x\"", modified, etag,
+            modified));
+        assertFalse(ConditionalRequests.notModified(etag, null, null, null));
+    }
+
+    /**
+     * Verifies If-Modified-Since compares with Last-Modified
+     */
+    @Test
+    public void testIfModifiedSince() {
+        String modified = ConditionalRequests.httpDate(60000);
+
+        assertTrue(ConditionalRequests.notModified(null, modified, null,
+            modified));
+        assertTrue(ConditionalRequests.notModified(null,
+            ConditionalRequests.httpDate(120000), null, modified));
+        assertFalse(ConditionalRequests.notModified(null,
+            ConditionalRequests.httpDate(0), null, modified));
+        assertFalse(ConditionalRequests.notModified(null, "yesterday", null,
+            modified));
+        assertFalse(ConditionalRequests.notModified(null, null, null,
+            modified));
+    }
+
+    private byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
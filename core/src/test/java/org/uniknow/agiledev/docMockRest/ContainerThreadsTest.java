@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Validates functionality of `ContainerThreads`.
+ */
+public class ContainerThreadsTest {
+
+    @Test
+    public void testApplied() {
+        assertEquals(1000, ContainerThreads.apply(wireMockConfig(), 1000)
+            .containerThreads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBelowMinimum() {
+        ContainerThreads.apply(wireMockConfig(), ContainerThreads.MINIMUM - 1);
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `ContentEncoding`.
+ */
+public class ContentEncodingTest {
+
+    /**
+     * Verifies gzip is accepted unless absent or with quality zero
+     */
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(ContentEncoding.acceptsGzip("gzip"));
+        assertTrue(ContentEncoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(ContentEncoding.acceptsGzip("deflate, GZIP;q=0.5"));
+
+        assertFalse(ContentEncoding.acceptsGzip(null));
+        assertFalse(ContentEncoding.acceptsGzip("deflate, br"));
+        assertFalse(ContentEncoding.acceptsGzip("x-gzip"));
+        assertFalse(ContentEncoding.acceptsGzip("gzip;q=0, deflate"));
+        assertFalse(ContentEncoding.acceptsGzip("br, gzip;q=0.0"));
+    }
+
+    /**
+     * Verifies small bodies are not compressed
+     */
+    @Test
+    public void testSmallBodyNotCompressed() {
+        assertNull(ContentEncoding.gzip(new byte[0]));
+        assertNull(ContentEncoding.gzip("{}".getBytes()));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.uniknow.agiledev.docMockRest.swagger.SwaggerConfig;
+import org.uniknow.agiledev.docMockRest.swagger.SwaggerMockServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Validates functionality of `JsonIOResponsesMappingsLoader`.
+ */
+public class JsonIOResponsesMappingsLoaderTest {
+
+    private static final String BODY_FILE =
+        "org/uniknow/agiledev/docMockRest/swagger/hello-body.txt";
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        server = new SwaggerMockServer(SwaggerConfig.create()
+            .setSwaggerPrefix("org.uniknow.agiledev.docMockRest.swagger"),
+            5353);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.shutdown();
+    }
+
+    /**
+     * Verifies body file used by several stub responses is read once
+     */
+    @Test
+    public void testSharedBodyFile() {
+        JsonIOResponsesMappingsLoader loader = loader("[" + mapping("TEST")
+            + "," + mapping("Mock") + "]");
+
+        List<StubMapping> mappings = loader.readMappings();
+        assertEquals(2, mappings.size());
+        assertEquals("/HelloWorld/TEST", mappings.get(0).getRequest()
+            .getUrl());
+        assertEquals("/HelloWorld/Mock", mappings.get(1).getRequest()
+            .getUrl());
+        for (StubMapping mapping : mappings) {
+            assertEquals("Hello from body file", mapping.getResponse()
+                .getBody());
+            assertNull(mapping.getResponse().getBodyFileName());
+        }
+        assertEquals("Hello from body file".length(),
+            loader.getDeduplicatedBytes());
+    }
+
+    /**
+     * Verifies compressed stub takes precedence over the stub response
+     */
+    @Test
+    public void testGzipVariantPriority() {
+        String body = new String(new char[ContentEncoding.MINIMUM_SIZE])
+            .replace('\0', 'a');
+        List<StubMapping> mappings = loader(
+            "[{\"request\":{\"method\":\"GET\",\"url\":\"/HelloWorld/TEST\"},"
+                + "\"response\":{\"status\":200,\"body\":\"" + body
+                + "\"},\"priority\":3}]").readMappings();
+
+        assertEquals(2, mappings.size());
+        assertEquals(Integer.valueOf(3), mappings.get(0).getPriority());
+        assertEquals(Integer.valueOf(2), mappings.get(1).getPriority());
+        assertEquals(ContentEncoding.GZIP, mappings.get(1).getResponse()
+            .getHeaders().getHeader(ContentEncoding.CONTENT_ENCODING)
+            .firstValue());
+    }
+
+    /**
+     * Verifies responses file must contain array of stub responses
+     */
+    @Test(expected = SystemError.class)
+    public void testNoArray() {
+        loader(mapping("TEST")).readMappings();
+    }
+
+    private JsonIOResponsesMappingsLoader loader(String responses) {
+        return new JsonIOResponsesMappingsLoader(server,
+            new ByteArrayInputStream(responses
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String mapping(String name) {
+        return "{\"request\":{\"method\":\"GET\",\"url\":\"/HelloWorld/"
+            + name + "\"},\"response\":{\"status\":200,\"bodyFileName\":\""
+            + BODY_FILE + "\"}}";
+    }
+}
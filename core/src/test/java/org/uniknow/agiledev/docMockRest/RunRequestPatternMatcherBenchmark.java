@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+
+/**
+ * Compares `RequestPatternMatcher` with `CompiledRequestPattern` when
+ * scanning the request patterns of a specification, for a workload in which
+ * most candidates match and one in which almost none match.
+ */
+public class RunRequestPatternMatcherBenchmark {
+
+    private static final int PATTERNS = 1000;
+
+    private static final int WARMUP = 20;
+
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        RequestPattern[] specs = new RequestPattern[PATTERNS];
+        RequestPattern[] requests = new RequestPattern[PATTERNS];
+        for (int i = 0; i < PATTERNS; i++) {
+            RequestPatternBuilder spec = new RequestPatternBuilder(
+                RequestMethod.GET, UrlPattern.fromOneOf(null, "/resources/r"
+                    + i + "/items/[0-9]+(\\?.*)?", null, null));
+            RequestPatternBuilder request = new RequestPatternBuilder(
+                RequestMethod.GET, UrlPattern.fromOneOf("/resources/r" + i
+                    + "/items/" + i, null, null, null));
+            if (i % 2 == 0) {
+                spec.withQueryParam("name", matching(".*"));
+                request.withQueryParam("name", equalTo("test"));
+            }
+            specs[i] = spec.build();
+            requests[i] = request.build();
+        }
+
+        System.out.println(String.format("%10s %15s %15s", "workload",
+            "old (ns/op)", "new (ns/op)"));
+        System.out.println(String.format("%10s %15.1f %15.1f", "hit",
+            old(specs, requests, true), compiled(specs, requests, true)));
+        System.out.println(String.format("%10s %15.1f %15.1f", "miss",
+            old(specs, requests, false), compiled(specs, requests, false)));
+    }
+
+    /**
+     * Returns nanoseconds per match using `RequestPatternMatcher`
+     */
+    private static double old(RequestPattern[] specs,
+        RequestPattern[] requests, boolean hit) {
+        RequestPatternMatcher matcher = new RequestPatternMatcher();
+        long matches = 0;
+        long start = 0;
+        for (int iteration = 0; iteration < WARMUP + ITERATIONS; iteration++) {
+            if (iteration == WARMUP) {
+                start = System.nanoTime();
+            }
+            // Either every spec with its own request or every spec with the
+            // request of another spec
+            RequestPattern miss = requests[iteration % PATTERNS];
+            for (int i = 0; i < PATTERNS; i++) {
+                RequestPattern request = hit ? requests[i] : miss;
+                if (hit || i != iteration % PATTERNS) {
+                    matches += matcher.match(specs[i], request) ? 1 : 0;
+                }
+            }
+        }
+        return elapsed(start, matches);
+    }
+
+    /**
+     * Returns nanoseconds per match using `CompiledRequestPattern`
+     */
+    private static double compiled(RequestPattern[] specs,
+        RequestPattern[] requests, boolean hit) {
+        CompiledRequestPattern[] compiled;
+        compiled = new CompiledRequestPattern[PATTERNS];
+        for (int i = 0; i < PATTERNS; i++) {
+            compiled[i] = new CompiledRequestPattern(specs[i]);
+        }
+
+        long matches = 0;
+        long start = 0;
+        for (int iteration = 0; iteration < WARMUP + ITERATIONS; iteration++) {
+            if (iteration == WARMUP) {
+                start = System.nanoTime();
+            }
+            CompiledRequestPattern miss = CompiledRequestPattern.request(
+                requests[iteration % PATTERNS]);
+            for (int i = 0; i < PATTERNS; i++) {
+                CompiledRequestPattern request = hit
+                    ? CompiledRequestPattern.request(requests[i]) : miss;
+                if (hit || i != iteration % PATTERNS) {
+                    matches += compiled[i].matches(request) ? 1 : 0;
+                }
+            }
+        }
+        return elapsed(start, matches);
+    }
+
+    private static double elapsed(long start, long matches) {
+        long elapsed = System.nanoTime() - start;
+        // Keep result of matching alive
+        if (matches < 0) {
+            System.out.println(matches);
+        }
+        return (double) elapsed / (ITERATIONS * PATTERNS);
+    }
+}
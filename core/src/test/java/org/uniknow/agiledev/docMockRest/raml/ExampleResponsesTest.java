@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.junit.Test;
+import org.raml.model.ActionType;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Validates functionality of `ExampleResponses`.
+ */
+public class ExampleResponsesTest {
+
+    private static final String SPECIFICATION = "#%RAML 0.8\n"
+        + "title: Users\n"
+        + "/users:\n"
+        + "  /{id}:\n"
+        + "    get:\n"
+        + "      responses:\n"
+        + "        404:\n"
+        + "          body:\n"
+        + "            application/json:\n"
+        + "              example: '{\"error\":\"unknown\"}'\n"
+        + "        200:\n"
+        + "          body:\n"
+        + "            application/json:\n"
+        + "              example: '{\"id\":1}'\n"
+        + "            application/xml:\n"
+        + "              example: '<user id=\"1\"/>'\n"
+        + "    delete:\n"
+        + "      responses:\n"
+        + "        204:\n"
+        + "          body:\n"
+        + "            text/plain:\n"
+        + "              example: deleted\n"
+        + "    put:\n"
+        + "      description: Without examples\n";
+
+    /**
+     * Verifies every action with examples is in the table
+     */
+    @Test
+    public void testActionsWithExamples() {
+        Map<String, ExampleResponses.ExampleAction> actions = actions();
+
+        assertEquals(2, actions.size());
+        assertEquals(ActionType.DELETE, actions.get("DELETE /users/{id}")
+            .getType());
+        assertEquals(204, actions.get("DELETE /users/{id}").getDefault()
+            .getStatus());
+    }
+
+    /**
+     * Verifies status code and media type are selected per request
+     */
+    @Test
+    public void testSelection() {
+        ExampleResponses.ExampleAction get = actions().get("GET /users/{id}");
+
+        assertEquals(200, get.getDefault().getStatus());
+        assertEquals("application/json", get.getDefault().getMediaType());
+        assertEquals(404, get.select("404", null).getStatus());
+        assertEquals("application/xml",
+            get.select(null, "application/xml").getMediaType());
+        assertEquals("application/json",
+            get.select("200", "text/html, */*").getMediaType());
+        assertNull(get.select("500", null));
+    }
+
+    private Map<String, ExampleResponses.ExampleAction> actions() {
+        Raml raml = new RamlDocumentBuilder().build(SPECIFICATION, "");
+        Map<String, ExampleResponses.ExampleAction> actions = new HashMap<>();
+        for (ExampleResponses.ExampleAction action : new ExampleResponses(
+            raml).getActions()) {
+            actions.put(action.getKey(), action);
+        }
+        return actions;
+    }
+}
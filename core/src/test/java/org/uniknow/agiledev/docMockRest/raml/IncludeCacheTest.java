@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Validates functionality of `IncludeCache`.
+ */
+public class IncludeCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies nested includes are read before the parser fetches them
+     */
+    @Test
+    public void testNestedIncludesPrefetched() throws IOException {
+        write("types/user.raml", "schema: !include user.json");
+        write("types/user.json", "{}");
+        write("error.json", "[]");
+
+        IncludeCache includes = new IncludeCache(folder.getRoot());
+        includes.prefetch(bytes("schemas:\n"
+            + "  - user: !include types/user.raml\n"
+            + "  - error: !include error.json\n"));
+        assertEquals(3, includes.getReads());
+
+        assertArrayEquals(bytes("{}"), fetch(includes, "types/user.json"));
+        assertArrayEquals(bytes("[]"), fetch(includes, "error.json"));
+        assertEquals(3, includes.getReads());
+    }
+
+    /**
+     * Verifies includes are only read again when they changed
+     */
+    @Test
+    public void testChangedIncludeReloaded() throws IOException {
+        Path file = write("error.json", "[]");
+        IncludeCache includes = new IncludeCache(folder.getRoot());
+        includes.prefetch(bytes("error: !include error.json"));
+        assertArrayEquals(bytes("[]"), fetch(includes, "error.json"));
+        assertEquals(1, includes.getReads());
+
+        write("error.json", "[1]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files
+            .getLastModifiedTime(file).toMillis() + 1000));
+        assertArrayEquals(bytes("[1]"), fetch(includes, "error.json"));
+        assertEquals(2, includes.getReads());
+    }
+
+    /**
+     * Verifies content of includes is not shared between loaders
+     */
+    @Test
+    public void testContentKeptByLoader() throws IOException {
+        write("error.json", "[]");
+        new IncludeCache(folder.getRoot()).prefetch(
+            bytes("error: !include error.json"));
+
+        IncludeCache includes = new IncludeCache(folder.getRoot());
+        assertArrayEquals(bytes("[]"), fetch(includes, "error.json"));
+        assertEquals(1, includes.getReads());
+    }
+
+    private byte[] fetch(IncludeCache includes, String name)
+        throws IOException {
+        try (InputStream in = includes.fetchResource(name)) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, bytes(content));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.http.HttpHeader;
+import com.github.tomakehurst.wiremock.http.HttpHeaders;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.Response;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.raml.model.Raml;
+import org.raml.parser.visitor.RamlDocumentBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Validates functionality of `MockResponses`.
+ */
+public class MockResponsesTest {
+
+    private static final String SPECIFICATION = "#%RAML 0.8\n"
+        + "title: Users\n"
+        + "/users:\n"
+        + "  /{id}:\n"
+        + "    get:\n"
+        + "      responses:\n"
+        + "        200:\n"
+        + "          body:\n"
+        + "            text/plain:\n"
+        + "              example: user\n"
+        + "        404:\n"
+        + "          body:\n"
+        + "            text/plain:\n"
+        + "              example: unknown\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies response file of a resource is found when the query string
+     * selects the status code of the response
+     */
+    @Test
+    public void testResponseFileWithStatusParameter() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("users/1/response.txt");
+        Files.createDirectories(file.getParent());
+        Files.write(file, "from file".getBytes(StandardCharsets.UTF_8));
+
+        Raml raml = new RamlDocumentBuilder().build(SPECIFICATION, "");
+        Request request = createNiceMock(Request.class);
+        expect(request.getUrl()).andReturn("/users/1?__status=404")
+            .anyTimes();
+        expect(request.queryParameter(ExampleResponses.STATUS_PARAMETER))
+            .andReturn(
+                new QueryParameter(ExampleResponses.STATUS_PARAMETER,
+                    Collections.singletonList("404"))).anyTimes();
+        replay(request);
+
+        try (MockResponses responses = new MockResponses(raml, folder
+            .getRoot().getPath())) {
+            Response response = responses.transform(request, Response
+                .response()
+                .headers(
+                    new HttpHeaders(new HttpHeader("Last-Modified",
+                        "Mon, 01 Aug 2016 00:00:00 GMT"))).build(), null,
+                Parameters.one(ExampleResponses.ACTION, "GET /users/{id}"));
+
+            assertEquals(404, response.getStatus());
+            assertEquals("from file", response.getBodyAsString());
+        }
+    }
+}
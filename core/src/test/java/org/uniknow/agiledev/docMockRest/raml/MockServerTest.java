@@ -22,7 +22,6 @@ import org.raml.model.Raml;
 import javax.validation.ValidationException;
 
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.replay;
@@ -85,6 +84,6 @@ public class MockServerTest {
     public void stubResourcesMockServerNull() {
         RamlMockServer server = new RamlMockServer();
 
-        server.stubResources(null, new ArrayList<>());
+        server.stubResources(null, new ExampleResponses(new Raml()));
     }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.uniknow.agiledev.docMockRest.ContentEncoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Validates functionality of `ResponseFileStore`.
+ */
+public class ResponseFileStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ResponseFileStore store;
+
+    @After
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Verifies response files are indexed at startup
+     */
+    @Test
+    public void testIndexedAtStartup() throws IOException {
+        Path file = write("users/response.json", "[]");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 1024);
+
+        assertEquals(2, store.size());
+        assertArrayEquals(bytes("[]"), store.get(file).getContent());
+        assertNull(store.get(file.resolveSibling("response.xml")));
+    }
+
+    /**
+     * Verifies changed response files are reloaded
+     */
+    @Test
+    public void testChangedFileReloaded() throws Exception {
+        Path file = write("users/response.json", "[]");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 1024);
+        assertArrayEquals(bytes("[]"), store.get(file).getContent());
+
+        write("users/response.json", "[1]");
+        for (int i = 0; i < 100 && store.size() != 0; i++) {
+            Thread.sleep(50);
+        }
+        assertArrayEquals(bytes("[1]"), store.get(file).getContent());
+    }
+
+    /**
+     * Verifies least recently used response files are evicted
+     */
+    @Test
+    public void testEviction() throws IOException {
+        Path first = write("a/response.json", "12345678");
+        Path second = write("b/response.json", "12345678");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 10);
+
+        store.get(first);
+        store.get(second);
+        assertEquals(8, store.size());
+        assertArrayEquals(bytes("12345678"), store.get(first).getContent());
+    }
+
+    /**
+     * Verifies missing response files are remembered until created
+     */
+    @Test
+    public void testMissingFileRemembered() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("users/response.json");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 1024);
+
+        assertNull(store.get(file));
+        assertEquals(0, store.getProbesSaved());
+        assertNull(store.get(file));
+        assertEquals(1, store.getProbesSaved());
+
+        write("users/response.json", "[]");
+        ResponseFile body = store.get(file);
+        for (int i = 0; i < 100 && body == null; i++) {
+            Thread.sleep(50);
+            body = store.get(file);
+        }
+        assertArrayEquals(bytes("[]"), body.getContent());
+    }
+
+    /**
+     * Verifies large response files are not cached, their content is shared
+     * by the requests serving it until the file changes
+     */
+    @Test
+    public void testLargeFileNotCached() throws IOException {
+        Path file = write("export/response.json", "123456789");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 1024, 8);
+        assertEquals(0, store.size());
+
+        ResponseFile body = store.get(file);
+        assertArrayEquals(bytes("123456789"), body.getContent());
+        assertNull(body.getGzip());
+        assertNotSame(body, store.get(file));
+        assertSame(body.getContent(), store.get(file).getContent());
+        assertEquals(body.getEtag(), store.get(file).getEtag());
+        assertEquals(0, store.size());
+
+        write("export/response.json", "987654321");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files
+            .getLastModifiedTime(file).toMillis() + 1000));
+        assertArrayEquals(bytes("987654321"), store.get(file).getContent());
+    }
+
+    /**
+     * Verifies gzip variant is prepared for larger response files only
+     */
+    @Test
+    public void testGzipVariant() throws IOException {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < ContentEncoding.MINIMUM_SIZE) {
+            content.append("{\"name\":\"test\"},");
+        }
+        Path large = write("users/response.json", content.toString());
+        Path small = write("user/response.json", "{}");
+        store = new ResponseFileStore(folder.getRoot().toPath(), 1024 * 1024);
+
+        ResponseFile file = store.get(large);
+        assertNotNull(file.getGzip());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(
+            file.getGzip()))) {
+            assertArrayEquals(bytes(content.toString()),
+                ByteStreams.toByteArray(in));
+        }
+        assertEquals(file.getContent().length + file.getGzip().length,
+            store.size() - 2);
+        assertNull(store.get(small).getGzip());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, bytes(content));
+    }
+
+    private byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
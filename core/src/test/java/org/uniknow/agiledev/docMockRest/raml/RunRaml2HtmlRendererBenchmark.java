@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.raml;
+
+import org.raml.model.Action;
+import org.raml.model.ActionType;
+import org.raml.model.MimeType;
+import org.raml.model.Raml;
+import org.raml.model.Resource;
+import org.raml.model.Response;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures the time to render the HTML documentation of a number of large
+ * RAML specifications, as done when building a documentation portal.
+ */
+public class RunRaml2HtmlRendererBenchmark {
+
+    private static final int SPECIFICATIONS = 40;
+
+    private static final int RESOURCES = 500;
+
+    private static final int WARMUP = 2;
+
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Raml[] specifications = new Raml[SPECIFICATIONS];
+        for (int i = 0; i < SPECIFICATIONS; i++) {
+            specifications[i] = specification(i);
+        }
+
+        long start = System.nanoTime();
+        new Raml2HtmlRenderer(specifications[0]).renderTo(new NullWriter());
+        System.out.println(String.format("%-20s %10.1f ms",
+            "first render", (System.nanoTime() - start) / 1e6));
+
+        for (int i = 0; i < WARMUP; i++) {
+            renderAll(specifications);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            renderAll(specifications);
+        }
+        System.out.println(String.format("%-20s %10.1f ms", SPECIFICATIONS
+            + " renders", (System.nanoTime() - start) / 1e6 / RUNS));
+    }
+
+    private static void renderAll(Raml[] specifications) throws IOException {
+        for (Raml specification : specifications) {
+            new Raml2HtmlRenderer(specification).renderTo(new NullWriter());
+        }
+    }
+
+    /**
+     * Returns specification with a GET and POST action on every resource
+     */
+    private static Raml specification(int number) {
+        Raml raml = new Raml();
+        raml.setTitle("Benchmark API " + number);
+        raml.setVersion("v1");
+        raml.setBaseUri("http://localhost/api");
+
+        for (int i = 0; i < RESOURCES; i++) {
+            Resource resource = new Resource();
+            resource.setRelativeUri("/resource" + i);
+            resource.setParentUri("");
+            resource.setDisplayName("Resource " + i);
+            resource.setDescription("Description of resource " + i);
+            for (ActionType type : new ActionType[] { ActionType.GET,
+                ActionType.POST }) {
+                resource.getActions().put(type, action(resource, type));
+            }
+            raml.getResources().put(resource.getRelativeUri(), resource);
+        }
+        return raml;
+    }
+
+    private static Action action(Resource resource, ActionType type) {
+        Action action = new Action();
+        action.setType(type);
+        action.setResource(resource);
+        action.setDescription(type + " " + resource.getDisplayName());
+
+        MimeType body = new MimeType("application/json");
+        body.setExample("{\"id\": 1, \"name\": \"" + resource.getDisplayName()
+            + "\"}");
+        Map<String, MimeType> bodies = new LinkedHashMap<>();
+        bodies.put(body.getType(), body);
+        Response response = new Response();
+        response.setDescription("Successful response");
+        response.setBody(bodies);
+        action.getResponses().put("200", response);
+        return action;
+    }
+
+    /**
+     * Writer discarding the rendered page
+     */
+    private static class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `Latency`.
+ */
+public class LatencyTest {
+
+    private static final int SAMPLES = 10000;
+
+    private static final long DELAY = 500;
+
+    @Test
+    public void testFixed() {
+        assertEquals(42, Latency.fixed(42).sample());
+    }
+
+    @Test
+    public void testUniformWithinBounds() {
+        Latency latency = Latency.uniform(10, 20);
+        for (int i = 0; i < SAMPLES; i++) {
+            long sample = latency.sample();
+            assertTrue(sample >= 10 && sample <= 20);
+        }
+    }
+
+    /**
+     * Verifies half of the samples are below the median
+     */
+    @Test
+    public void testLogNormalMedian() {
+        Latency latency = Latency.logNormal(100, 0.5);
+        int below = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (latency.sample() < 100) {
+                below++;
+            }
+        }
+        assertEquals(0.5, (double) below / SAMPLES, 0.05);
+    }
+
+    /**
+     * Verifies histogram only replays measured latencies, in proportion
+     */
+    @Test
+    public void testHistogramReplayed() {
+        Map<Long, Long> histogram = new HashMap<>();
+        histogram.put(10L, 90L);
+        histogram.put(1000L, 10L);
+
+        Latency latency = Latency.histogram(histogram);
+        int slow = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            long sample = latency.sample();
+            assertTrue(sample == 10 || sample == 1000);
+            if (sample == 1000) {
+                slow++;
+            }
+        }
+        assertEquals(0.1, (double) slow / SAMPLES, 0.02);
+    }
+
+    @Test
+    public void testParseExtension() {
+        Map<String, Object> extension = new LinkedHashMap<>();
+        extension.put("distribution", "uniform");
+        extension.put("min", 5);
+        extension.put("max", 5);
+        assertEquals(5, Latency.parse(extension).sample());
+
+        Map<String, Object> buckets = new LinkedHashMap<>();
+        buckets.put("7", 3);
+        extension.clear();
+        extension.put("distribution", "histogram");
+        extension.put("buckets", buckets);
+        assertEquals(7, Latency.parse(extension).sample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownDistribution() {
+        Map<String, Object> extension = new HashMap<>();
+        extension.put("distribution", "exponential");
+        Latency.parse(extension);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLatency() {
+        Latency.uniform(-1, 10);
+    }
+
+    /**
+     * Verifies configured latency delays responses, also after the server is
+     * reset, unless the stub has a fixed delay of its own
+     */
+    @Test
+    public void testConfiguredLatencyDelaysResponse() throws IOException {
+        SwaggerMockServer server = new SwaggerMockServer(SwaggerConfig
+            .create()
+            .setSwaggerPrefix("org.uniknow.agiledev.docMockRest.swagger")
+            .setLatency("hello", Latency.fixed(DELAY)), 7777);
+        try {
+            assertTrue(elapsed("/HelloWorld/TEST") >= DELAY);
+
+            server.reset();
+            assertTrue(elapsed("/HelloWorld/TEST") >= DELAY);
+
+            server.stubFor(get(urlEqualTo("/HelloWorld/TEST")).willReturn(
+                aResponse().withStatus(200).withFixedDelay(0)));
+            assertTrue(elapsed("/HelloWorld/TEST") < DELAY);
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    /**
+     * Returns milliseconds taken by server to respond to request for path
+     */
+    private long elapsed(String path) throws IOException {
+        long started = System.nanoTime();
+        HttpResponse response = new DefaultHttpClient().execute(new HttpGet(
+            "http://localhost:7777" + path));
+        EntityUtils.consumeQuietly(response.getEntity());
+        return (System.nanoTime() - started) / 1000000;
+    }
+}
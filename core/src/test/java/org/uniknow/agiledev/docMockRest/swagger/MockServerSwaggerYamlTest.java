@@ -85,8 +85,36 @@ public class MockServerSwaggerYamlTest {
         EntityUtils.consumeQuietly(response.getEntity());
     }
 
+    /**
+     * Verifies response for request missing mandatory parameter is 400
+     */
+    @Test
+    public void testInvokeStubbedOperationWithoutMandatoryParameter()
+        throws IOException {
+        HttpClient client = new DefaultHttpClient();
 
+        HttpGet request = new HttpGet("http://localhost:2020/echo");
+        HttpResponse response = client.execute(request);
+        assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine()
+            .getStatusCode());
+        EntityUtils.consumeQuietly(response.getEntity());
+    }
 
+    /**
+     * Verifies default stubs of the specification are available after reset
+     */
+    @Test
+    public void testResetRestoresDefaultStubs() throws IOException {
+        server.reset();
+        assertNotNull(server.when("echo"));
+
+        HttpClient client = new DefaultHttpClient();
+        HttpGet request = new HttpGet("http://localhost:2020/echo?message=test");
+        HttpResponse response = client.execute(request);
+        assertEquals(HttpStatus.SC_NOT_IMPLEMENTED, response.getStatusLine()
+            .getStatusCode());
+        EntityUtils.consumeQuietly(response.getEntity());
+    }
 
     /**
      * Verifies null is returned for non existing operation/stub
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import io.swagger.models.Operation;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Validates functionality of `OperationCache`.
+ */
+public class OperationCacheTest {
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() {
+        server = new SwaggerMockServer(5555);
+        server.stubHelper.createStubs(SyntheticSpecification.create(10));
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.shutdown();
+    }
+
+    /**
+     * Verifies repeated lookups of the same request shape are cached
+     */
+    @Test
+    public void testRepeatedLookupIsCached() {
+        server.reset();
+        OperationCache cache = server.getOperationCache();
+
+        Operation operation = server.getOperation(post(1, "a"));
+        assertEquals(SyntheticSpecification.postOperationId(1),
+            operation.getOperationId());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // Values of parameters don't change the matching operation
+        assertEquals(operation, server.getOperation(post(1, "b")));
+        assertEquals(1, cache.getHitCount());
+
+        // Missing operations are cached as well
+        assertNull(server.getOperation(post(20, "a")));
+        assertNull(server.getOperation(post(20, "a")));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    /**
+     * Verifies reset and reload of specification invalidate the cache
+     */
+    @Test
+    public void testInvalidatedByResetAndReload() {
+        server.reset();
+        server.getOperation(post(2, "a"));
+        OperationCache cache = server.getOperationCache();
+        assertEquals(1, cache.size());
+
+        server.reset();
+        assertNotSame(cache, server.getOperationCache());
+        assertEquals(0, server.getOperationCache().size());
+
+        server.getOperation(post(2, "a"));
+        cache = server.getOperationCache();
+        server.stubHelper.createStubs(SyntheticSpecification.create(10));
+        assertNotSame(cache, server.getOperationCache());
+    }
+
+    /**
+     * Verifies least recently used entries are evicted
+     */
+    @Test
+    public void testEviction() {
+        OperationCache cache = new OperationCache(2);
+        cache.put(post(1, "a"), null);
+        cache.put(post(2, "a"), null);
+        cache.put(post(3, "a"), null);
+
+        assertEquals(2, cache.size());
+    }
+
+    private RequestPattern post(int path, String name) {
+        return new RequestPatternBuilder(RequestMethod.POST,
+            UrlPattern.fromOneOf(SyntheticSpecification.requestUrl(path),
+                null, null, null)).withQueryParam("name", equalTo(name))
+            .build();
+    }
+}
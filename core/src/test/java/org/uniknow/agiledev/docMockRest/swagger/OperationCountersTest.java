@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Validates the operation counters of the swagger mock server.
+ */
+public class OperationCountersTest {
+
+    private static final int PORT = 7575;
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        server = new SwaggerMockServer(SwaggerConfig.create()
+            .setSwaggerPrefix(
+                "org.uniknow.agiledev.docMockRest.examples.swagger.annotated"),
+            PORT);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.getWireMockServer().stop();
+    }
+
+    /**
+     * Verifies calls are counted per operation and status code, served by
+     * the counters endpoint and cleared by reset
+     */
+    @Test
+    public void testCounted() throws IOException {
+        server.reset();
+        get("/user/test");
+        get("/user/other");
+        get("/user/logout");
+
+        assertEquals(2, server.callCount("getUserByName"));
+        assertEquals(1, server.callCount("logoutUser",
+            HttpStatus.SC_NOT_IMPLEMENTED));
+        assertEquals(0, server.callCount("logoutUser", HttpStatus.SC_OK));
+        assertEquals(0, server.callCount("loginUser"));
+
+        JsonNode counters = Json.mapper().readTree(
+            get(SwaggerMockServer.COUNTERS_PATH));
+        assertEquals(2, counters.path("getUserByName").path("calls")
+            .asInt());
+        assertEquals(1, counters.path("logoutUser").path("statuses")
+            .path("501").asInt());
+
+        server.reset();
+        assertEquals(0, server.callCount("getUserByName"));
+    }
+
+    private String get(String path) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        HttpResponse response = client.execute(new HttpGet(
+            "http://localhost:" + PORT + path));
+        return EntityUtils.toString(response.getEntity());
+    }
+}
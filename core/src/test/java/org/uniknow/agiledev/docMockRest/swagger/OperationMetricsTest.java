@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates the metrics of the swagger mock server.
+ */
+public class OperationMetricsTest {
+
+    private static final int PORT = 7676;
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        server = new SwaggerMockServer(SwaggerConfig.create()
+            .setSwaggerPrefix(
+                "org.uniknow.agiledev.docMockRest.examples.swagger.annotated"),
+            PORT);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.getWireMockServer().stop();
+    }
+
+    /**
+     * Verifies requests, errors and time spent per operation and phase are
+     * served as JSON document and cleared by the reset endpoint
+     */
+    @Test
+    public void testMetrics() throws IOException {
+        server.reset();
+        get("/user/test");
+        get("/user/other");
+        get("/user/logout");
+
+        JsonNode metrics = Json.mapper().readTree(
+            get(SwaggerMockServer.METRICS_PATH));
+        assertEquals(3, metrics.path("requests").asInt());
+        assertEquals(1, metrics.path("errors").asInt());
+
+        JsonNode serve = metrics.path("operations").path("getUserByName")
+            .path(OperationMetrics.SERVE);
+        assertEquals(2, serve.path("count").asInt());
+        assertTrue(serve.path("p99").asDouble() > 0);
+        assertTrue(serve.path("max").asDouble() >= serve.path("p50")
+            .asDouble());
+        assertEquals(2, metrics.path("operations").path("getUserByName")
+            .path(OperationMetrics.MATCH).path("count").asInt());
+
+        metrics = Json.mapper().readTree(
+            execute(new HttpPost(url(SwaggerMockServer.METRICS_PATH
+                + "/reset"))));
+        assertEquals(0, metrics.path("requests").asInt());
+        assertEquals(0, metrics.path("operations").size());
+    }
+
+    /**
+     * Verifies metrics are served in the text format of Prometheus
+     */
+    @Test
+    public void testPrometheus() throws IOException {
+        server.reset();
+        get("/user/test");
+
+        String text = get(SwaggerMockServer.METRICS_PATH + "/prometheus");
+        assertTrue(text.contains("# TYPE mock_requests_total counter"));
+        assertTrue(text.contains("mock_phase_seconds_count{"
+            + "operation=\"getUserByName\",phase=\"serve\"} 1"));
+        assertTrue(text.contains("quantile=\"0.99\""));
+    }
+
+    private String get(String path) throws IOException {
+        return execute(new HttpGet(url(path)));
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + PORT + path;
+    }
+
+    private String execute(HttpUriRequest request) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        HttpResponse response = client.execute(request);
+        return EntityUtils.toString(response.getEntity());
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import io.swagger.models.Operation;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.uniknow.agiledev.docMockRest.RequestPatternMatcher;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `OperationRouter`.
+ */
+public class OperationRouterTest {
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() throws IOException {
+        server = new SwaggerMockServer(
+            SwaggerConfig
+                .create()
+                .setSwaggerPrefix(
+                    "org.uniknow.agiledev.docMockRest.examples.swagger.annotated"),
+            6060);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.shutdown();
+    }
+
+    /**
+     * Verifies literal segments take precedence over templated segments
+     */
+    @Test
+    public void testLiteralBeforeTemplate() {
+        Route template = route("getUser", RequestMethod.GET, "/user/.*");
+        Route literal = route("login", RequestMethod.GET, "/user/login");
+
+        OperationRouter router = new OperationRouter();
+        router.add(RequestMethod.GET, "/user/{username}", template);
+        router.add(RequestMethod.GET, "/user/login", literal);
+
+        List<Route> candidates = router.candidates(
+            RequestMethod.GET, "/user/login?username=x");
+        assertEquals(2, candidates.size());
+        assertEquals(literal, candidates.get(0));
+        assertEquals(template, candidates.get(1));
+
+        candidates = router.candidates(RequestMethod.GET, "/user/test");
+        assertEquals(1, candidates.size());
+        assertEquals(template, candidates.get(0));
+    }
+
+    /**
+     * Verifies operations are separated by HTTP method and path depth
+     */
+    @Test
+    public void testMismatchMethodAndDepth() {
+        OperationRouter router = new OperationRouter();
+        router.add(RequestMethod.GET, "/user/{username}",
+            route("getUser", RequestMethod.GET, "/user/.*"));
+
+        assertTrue(router.candidates(RequestMethod.POST, "/user/test")
+            .isEmpty());
+        assertTrue(router.candidates(RequestMethod.GET, "/user").isEmpty());
+        assertTrue(router.candidates(RequestMethod.GET, "/user/test/x")
+            .isEmpty());
+    }
+
+    /**
+     * Verifies index returns same operation as scanning all operations
+     */
+    @Test
+    public void testSameOperationAsLinearScan() {
+        String[][] requests = { { "GET", "/user/test" },
+            { "GET", "/user/logout" }, { "GET", "/user/login" },
+            { "PUT", "/user/test" }, { "DELETE", "/user/test" },
+            { "POST", "/user" }, { "POST", "/user/createWithArray" },
+            { "POST", "/user/createWithList" }, { "GET", "/nonexisting" },
+            { "POST", "/user/test" } };
+
+        for (String[] request : requests) {
+            RequestPattern pattern = new RequestPatternBuilder(
+                RequestMethod.fromString(request[0]), UrlPattern.fromOneOf(
+                    request[1], null, null, null)).build();
+
+            assertSameAsScan(pattern);
+        }
+    }
+
+    /**
+     * Verifies index takes query parameters into account like the scan does
+     */
+    @Test
+    public void testSameOperationAsLinearScanWithQueryParameters() {
+        RequestPattern pattern = new RequestPatternBuilder(RequestMethod.GET,
+            UrlPattern.fromOneOf("/user/login", null, null, null))
+            .withQueryParam("username", equalTo("test"))
+            .withQueryParam("password", equalTo("test")).build();
+
+        Operation operation = assertSameAsScan(pattern);
+        assertNotNull(operation);
+        assertEquals("loginUser", operation.getOperationId());
+    }
+
+    private Operation assertSameAsScan(RequestPattern request) {
+        List<Operation> matching = scan(server.getOperations(), request);
+        Operation operation = server.getOperation(request);
+
+        if (matching.size() == 1) {
+            assertEquals(matching.get(0), operation);
+        } else if (matching.isEmpty()) {
+            assertEquals(null, operation);
+        } else {
+            // Scan order is undefined, index returns one of the matches
+            assertTrue(matching.contains(operation));
+        }
+        return operation;
+    }
+
+    private List<Operation> scan(Map<RequestPattern, Operation> operations,
+        RequestPattern request) {
+        RequestPatternMatcher matcher = new RequestPatternMatcher();
+        List<Operation> result = new ArrayList<>();
+        for (Map.Entry<RequestPattern, Operation> entry : operations
+            .entrySet()) {
+            if (matcher.match(entry.getKey(), request)) {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private Route route(String operationId, RequestMethod method,
+        String regex) {
+        return new Route(operationId, new RequestPatternBuilder(method,
+            UrlPattern.fromOneOf(null, regex, null, null)).build());
+    }
+}
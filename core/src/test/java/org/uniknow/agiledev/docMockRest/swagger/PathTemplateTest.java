@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.PathParameter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `PathTemplate`.
+ */
+public class PathTemplateTest {
+
+    /**
+     * Verifies path without parameters matches literally
+     */
+    @Test
+    public void testLiteralPath() {
+        PathTemplate template = new PathTemplate("/user/login.json");
+
+        assertEquals("/user/login\\.json", template.getRegularExpression());
+        assertTrue(matches(template, "/user/login.json"));
+        assertFalse(matches(template, "/user/loginXjson"));
+    }
+
+    /**
+     * Verifies templated segments only match a single segment
+     */
+    @Test
+    public void testParametersMatchSingleSegment() {
+        PathTemplate template = new PathTemplate("/users/{id}/orders/{oid}");
+
+        assertTrue(matches(template, "/users/1/orders/2"));
+        assertFalse(matches(template, "/users/1/x/orders/2"));
+        assertFalse(matches(template, "/users/1/orders/2/3"));
+    }
+
+    /**
+     * Verifies templated segments match the type of the path parameter
+     */
+    @Test
+    public void testTypedParameters() {
+        List<Parameter> parameters = new ArrayList<>();
+        parameters.add(parameter("id", "integer", null));
+        parameters.add(parameter("uid", "string", "uuid"));
+        parameters.add(parameter("day", "string", "date"));
+        PathParameter state = parameter("state", "string", null);
+        state.setEnum(Arrays.asList("open", "closed"));
+        parameters.add(state);
+        PathParameter code = parameter("code", "string", null);
+        code.setPattern("^[A-Z]{3}$");
+        parameters.add(code);
+
+        PathTemplate template = new PathTemplate(
+            "/users/{id}/{uid}/{day}/{state}/{code}", parameters);
+
+        assertTrue(matches(template,
+            "/users/12/123e4567-e89b-12d3-a456-426655440000/2016-09-01/open/ABC"));
+        assertFalse(matches(template,
+            "/users/x/123e4567-e89b-12d3-a456-426655440000/2016-09-01/open/ABC"));
+        assertFalse(matches(template, "/users/12/x/2016-09-01/open/ABC"));
+        assertFalse(matches(template,
+            "/users/12/123e4567-e89b-12d3-a456-426655440000/x/open/ABC"));
+        assertFalse(matches(template,
+            "/users/12/123e4567-e89b-12d3-a456-426655440000/2016-09-01/x/ABC"));
+        assertFalse(matches(template,
+            "/users/12/123e4567-e89b-12d3-a456-426655440000/2016-09-01/open/abc"));
+    }
+
+    /**
+     * Verifies segments matching part of a segment
+     */
+    @Test
+    public void testParameterWithinSegment() {
+        List<Parameter> parameters = new ArrayList<>();
+        parameters.add(parameter("id", "integer", null));
+
+        PathTemplate template = new PathTemplate("/files/{id}.json",
+            parameters);
+
+        assertTrue(template.getSegments().get(0).isLiteral());
+        assertFalse(template.getSegments().get(1).isLiteral());
+        assertTrue(template.getSegments().get(1).matches("12.json"));
+        assertFalse(template.getSegments().get(1).matches("12.xml"));
+    }
+
+    /**
+     * Verifies patterns of path parameters only match within their segment
+     */
+    @Test
+    public void testPatternBoundedToSegment() {
+        PathParameter any = parameter("any", "string", null);
+        any.setPattern(".*");
+        PathTemplate template = new PathTemplate("/files/{any}/content",
+            Arrays.<Parameter> asList(any));
+
+        assertTrue(matches(template, "/files/a/content"));
+        assertFalse(matches(template, "/files/a/b/content"));
+        assertTrue(template.getSegments().get(1).matches("a"));
+    }
+
+    /**
+     * Verifies pattern that isn't a valid Java regular expression is ignored
+     * instead of failing the specification
+     */
+    @Test
+    public void testInvalidPatternIgnored() {
+        PathParameter code = parameter("code", "string", null);
+        code.setPattern("[^]+");
+        PathTemplate template = new PathTemplate("/codes/{code}",
+            Arrays.<Parameter> asList(code));
+
+        assertTrue(matches(template, "/codes/abc"));
+        assertFalse(matches(template, "/codes/abc/def"));
+    }
+
+    private boolean matches(PathTemplate template, String path) {
+        return Pattern.matches(template.getRegularExpression(), path);
+    }
+
+    private PathParameter parameter(String name, String type, String format) {
+        PathParameter parameter = new PathParameter();
+        parameter.setName(name);
+        parameter.setType(type);
+        parameter.setFormat(format);
+        return parameter;
+    }
+}
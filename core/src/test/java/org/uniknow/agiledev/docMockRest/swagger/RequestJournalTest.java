@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+import org.uniknow.agiledev.docMockRest.RequestJournal;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates the `RequestJournal` of the swagger mock server.
+ */
+public class RequestJournalTest {
+
+    private static final int PORT = 7474;
+
+    /**
+     * Verifies only the most recent requests are retained, with the time
+     * spent serving them
+     */
+    @Test
+    public void testBounded() throws IOException {
+        RequestJournal journal = RequestJournal.create().setCapacity(3);
+        SwaggerMockServer server = start(journal);
+        try {
+            for (int i = 0; i < 5; i++) {
+                get("/user/test" + i);
+            }
+
+            List<RequestJournal.Entry> entries = journal.getEntries();
+            assertEquals(3, entries.size());
+            assertEquals("/user/test2", entries.get(0).getUrl());
+            assertEquals("/user/test4", entries.get(2).getUrl());
+            assertEquals("getUserByName", entries.get(2).getOperationId());
+            assertTrue(entries.get(2).getDuration() > 0);
+            assertEquals(5, journal.getReceived());
+
+            assertEquals(1, journal.count(getRequestedFor(
+                urlEqualTo("/user/test3")).build()));
+            assertEquals(0, journal.count(getRequestedFor(
+                urlEqualTo("/user/test0")).build()));
+        } finally {
+            server.getWireMockServer().stop();
+        }
+    }
+
+    /**
+     * Verifies compact journal keeps metadata only and sampling is applied
+     * per operation
+     */
+    @Test
+    public void testCompactAndSampled() throws IOException {
+        RequestJournal journal = RequestJournal.create().setCompact(true)
+            .setSampling("logoutUser", Integer.MAX_VALUE);
+        SwaggerMockServer server = start(journal);
+        try {
+            get("/user/test");
+            for (int i = 0; i < 10; i++) {
+                get("/user/logout");
+            }
+
+            List<RequestJournal.Entry> entries = journal.getEntries();
+            assertEquals(11, journal.getReceived());
+            assertEquals(1, journal.count(getRequestedFor(
+                urlEqualTo("/user/test")).build()));
+            assertNull(entries.get(0).getRequest());
+        } finally {
+            server.getWireMockServer().stop();
+        }
+    }
+
+    /**
+     * Verifies compact journal rejects patterns matching query parameters,
+     * which it doesn't retain
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompactQueryParameters() {
+        RequestJournal.create().setCompact(true).count(
+            getRequestedFor(urlPathEqualTo("/user/login")).withQueryParam(
+                "username", equalTo("test")).build());
+    }
+
+    private SwaggerMockServer start(RequestJournal journal)
+        throws IOException {
+        return new SwaggerMockServer(SwaggerConfig.create()
+            .setSwaggerPrefix(
+                "org.uniknow.agiledev.docMockRest.examples.swagger.annotated")
+            .setRequestJournal(journal), PORT);
+    }
+
+    private void get(String path) throws IOException {
+        HttpClient client = new DefaultHttpClient();
+        HttpResponse response = client.execute(new HttpGet(
+            "http://localhost:" + PORT + path));
+        EntityUtils.consumeQuietly(response.getEntity());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+
+/**
+ * Measures how many concurrent requests to an operation stubbed with a fixed
+ * delay are served in parallel, for a varying number of container threads.
+ */
+public class RunDelayedRequestsBenchmark {
+
+    private static final int PORT = 7373;
+
+    /*
+     * Delay of stub in milliseconds
+     */
+    private static final int DELAY = 500;
+
+    private static final int REQUESTS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%10s %15s %15s", "threads",
+            "elapsed (ms)", "concurrent"));
+
+        for (int threads : new int[] { 10, 200, 1000 }) {
+            long elapsed = run(threads);
+            System.out.println(String.format("%10d %15d %15.0f", threads,
+                elapsed, (double) REQUESTS * DELAY / elapsed));
+        }
+    }
+
+    /**
+     * Returns milliseconds needed to serve all requests concurrently
+     */
+    private static long run(int threads) throws Exception {
+        SwaggerMockServer server = new SwaggerMockServer(PORT, threads);
+        ExecutorService clients = Executors.newFixedThreadPool(REQUESTS);
+        try {
+            server.stubHelper.createStubs(SyntheticSpecification.create(1));
+            server.stubFor(server.when(
+                SyntheticSpecification.getOperationId(0)).willReturn(
+                aResponse().withFixedDelay(DELAY).withBody("delayed")));
+
+            URL url = new URL("http://localhost:" + PORT
+                + SyntheticSpecification.requestUrl(0));
+            long start = System.nanoTime();
+            List<Future<?>> responses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                responses.add(clients.submit(() -> invoke(url)));
+            }
+            for (Future<?> response : responses) {
+                response.get();
+            }
+            return (System.nanoTime() - start) / 1000000;
+        } finally {
+            clients.shutdownNow();
+            server.getWireMockServer().stop();
+        }
+    }
+
+    private static Void invoke(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url
+            .openConnection();
+        try (InputStream in = connection.getResponseCode() < 400 ? connection
+            .getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                ByteStreams.toByteArray(in);
+            }
+        } finally {
+            connection.disconnect();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares the throughput of the default stubs when matched by the operation
+ * dispatcher with matching the URL pattern of every stub.
+ */
+public class RunOperationDispatchBenchmark {
+
+    private static final int PORT = 7171;
+
+    private static final int WARMUP = 2000;
+
+    private static final int REQUESTS = 10000;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(String.format("%10s %15s %15s", "operations",
+            "scan (req/s)", "dispatch (req/s)"));
+
+        for (int paths : new int[] { 250, 1000, 5000 }) {
+            double scan = run(paths, false);
+            double dispatch = run(paths, true);
+            System.out.println(String.format("%10d %15.0f %15.0f",
+                paths * 2, scan, dispatch));
+        }
+    }
+
+    /**
+     * Returns the number of requests per second served for specification
+     * with specified number of paths (two operations per path).
+     */
+    private static double run(int paths, boolean dispatch) throws IOException {
+        SwaggerMockServer server = new SwaggerMockServer(PORT);
+        try {
+            server.setOperationDispatch(dispatch);
+            server.stubHelper.createStubs(SyntheticSpecification
+                .create(paths));
+
+            HttpClient client = new DefaultHttpClient();
+            Random random = new Random(paths);
+
+            invoke(client, random, paths, WARMUP);
+
+            long start = System.nanoTime();
+            invoke(client, random, paths, REQUESTS);
+            long elapsed = System.nanoTime() - start;
+
+            return REQUESTS / (elapsed / 1e9);
+        } finally {
+            server.getWireMockServer().stop();
+        }
+    }
+
+    private static void invoke(HttpClient client, Random random, int paths,
+        int requests) throws IOException {
+        for (int i = 0; i < requests; i++) {
+            HttpGet request = new HttpGet("http://localhost:" + PORT
+                + SyntheticSpecification.requestUrl(random.nextInt(paths)));
+            HttpResponse response = client.execute(request);
+            EntityUtils.consumeQuietly(response.getEntity());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.models.Swagger;
+
+/**
+ * Measures the startup time of a mock server for a large specification
+ * when compiling its stubs with a varying number of threads.
+ */
+public class RunStubCompilationBenchmark {
+
+    private static final int PORT = 7272;
+
+    private static final int PATHS = 5000;
+
+    private static final int WARMUP = 2;
+
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        Swagger specification = SyntheticSpecification.create(PATHS);
+
+        SwaggerMockServer server = new SwaggerMockServer(PORT);
+        try {
+            System.out.println(String.format("%10s %15s", "threads",
+                "startup (ms)"));
+            for (int threads : new int[] { 1, 4, 16 }) {
+                server.setCompilationThreads(threads);
+
+                for (int i = 0; i < WARMUP; i++) {
+                    server.stubHelper.createStubs(specification);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < RUNS; i++) {
+                    server.stubHelper.createStubs(specification);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                System.out.println(String.format("%10d %15.1f", threads,
+                    elapsed / 1e6 / RUNS));
+            }
+        } finally {
+            server.getWireMockServer().stop();
+        }
+    }
+}
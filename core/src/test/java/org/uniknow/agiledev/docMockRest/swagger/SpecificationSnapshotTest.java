@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import io.swagger.models.Swagger;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `SpecificationSnapshot`.
+ */
+public class SpecificationSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies server started from snapshot mocks the same operations
+     */
+    @Test
+    public void testStartFromSnapshot() throws IOException {
+        File file = new File(folder.getRoot(), "echo.snapshot");
+        SwaggerConfig config = SwaggerConfig.create()
+            .setSwaggerResourceName("/echo.yaml")
+            .setSnapshotLocation(file.getPath());
+
+        // First start writes snapshot
+        SwaggerMockServer server = new SwaggerMockServer(config, 5252);
+        server.getWireMockServer().stop();
+        assertTrue(file.isFile());
+
+        // Second start reads snapshot
+        server = new SwaggerMockServer(config, 5252);
+        try {
+            assertNotNull(server.when("echo"));
+
+            HttpClient client = new DefaultHttpClient();
+            HttpResponse response = client.execute(new HttpGet(
+                "http://localhost:5252/echo?message=test"));
+            assertEquals(HttpStatus.SC_NOT_IMPLEMENTED, response
+                .getStatusLine().getStatusCode());
+            EntityUtils.consumeQuietly(response.getEntity());
+        } finally {
+            server.getWireMockServer().stop();
+        }
+    }
+
+    /**
+     * Verifies snapshot is ignored when content has changed
+     */
+    @Test
+    public void testSnapshotIgnoredForChangedContent() throws IOException {
+        String key = SpecificationSnapshot.key(
+            "swagger: '2.0'".getBytes(StandardCharsets.UTF_8), null);
+        String changed = SpecificationSnapshot.key(
+            "swagger: '2.0' ".getBytes(StandardCharsets.UTF_8), null);
+        assertNotEquals(key, changed);
+
+        File file = new File(folder.getRoot(), "changed.snapshot");
+        new SpecificationSnapshot(key, new Swagger(),
+            Collections.<StubMapping> emptyList()).write(file);
+
+        assertNotNull(SpecificationSnapshot.read(file, key));
+        assertNull(SpecificationSnapshot.read(file, changed));
+    }
+
+    /**
+     * Verifies key changes when a document referred to by the specification
+     * changes
+     */
+    @Test
+    public void testKeyIncludesReferencedDocuments() throws IOException {
+        File specification = folder.newFile("api.yaml");
+        Files.write(specification.toPath(), ("swagger: '2.0'\n"
+            + "definitions:\n"
+            + "  Message:\n"
+            + "    $ref: 'definitions.yaml#/Message'\n")
+            .getBytes(StandardCharsets.UTF_8));
+        File definitions = folder.newFile("definitions.yaml");
+        Files.write(definitions.toPath(), "Message:\n  type: string\n"
+            .getBytes(StandardCharsets.UTF_8));
+
+        String key = SpecificationSnapshot.key(
+            SpecificationSnapshot.url(specification.getPath()), null);
+        assertEquals(key, SpecificationSnapshot.key(
+            SpecificationSnapshot.url(specification.getPath()), null));
+
+        Files.write(definitions.toPath(), "Message:\n  type: integer\n"
+            .getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(key, SpecificationSnapshot.key(
+            SpecificationSnapshot.url(specification.getPath()), null));
+    }
+
+    /**
+     * Verifies specification on the classpath is keyed
+     */
+    @Test
+    public void testKeyOfResource() throws IOException {
+        assertNotNull(SpecificationSnapshot.key(
+            SpecificationSnapshot.url("/echo.yaml"), null));
+    }
+}
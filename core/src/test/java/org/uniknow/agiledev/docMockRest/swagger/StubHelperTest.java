@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.matching.RequestPattern;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import io.swagger.models.Operation;
+import io.swagger.models.Swagger;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Validates functionality of `StubHelper`.
+ */
+public class StubHelperTest {
+
+    private static SwaggerMockServer server;
+
+    @BeforeClass
+    public static void init() {
+        server = new SwaggerMockServer(5151);
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        server.shutdown();
+    }
+
+    /**
+     * Verifies compiling paths in parallel results in the same operations
+     * and stubs, in the same order, as compiling them sequentially.
+     */
+    @Test
+    public void testParallelCompilationSameAsSequential() {
+        Swagger specification = SyntheticSpecification.create(500);
+
+        server.setCompilationThreads(1);
+        CompiledSpecification sequential = server.stubHelper
+            .compile(specification);
+
+        server.setCompilationThreads(4);
+        CompiledSpecification parallel = server.stubHelper
+            .compile(specification);
+
+        assertEquals(1000, sequential.getOperations().size());
+        assertEquals(sequential.getOperations().size(), parallel
+            .getOperations().size());
+        for (int i = 0; i < sequential.getOperations().size(); i++) {
+            assertEquals(sequential.getOperations().get(i).getDispatchKey(),
+                parallel.getOperations().get(i).getDispatchKey());
+        }
+
+        List<StubMapping> expected = sequential.getMappings();
+        List<StubMapping> actual = parallel.getMappings();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRequest().toString(), actual
+                .get(i).getRequest().toString());
+            assertEquals(expected.get(i).getPriority(), actual.get(i)
+                .getPriority());
+        }
+    }
+
+    /**
+     * Verifies dispatched operations share their default stubs, so the stubs
+     * installed don't depend on the size of the specification
+     */
+    @Test
+    public void testSharedDefaultStubs() throws IOException {
+        CompiledSpecification compiled = server.stubHelper
+            .compile(SyntheticSpecification.create(100));
+        server.setCompiledSpecification(compiled);
+        server.reset();
+
+        int defaults = 0;
+        for (StubMapping mapping : compiled.getMappings()) {
+            if (!SwaggerMockServer.SPECIFICATION_PATH.equals(mapping
+                .getRequest().getUrl())) {
+                defaults++;
+            }
+        }
+        assertEquals(2, defaults);
+
+        HttpResponse response = new DefaultHttpClient().execute(new HttpGet(
+            "http://localhost:5151" + SyntheticSpecification.requestUrl(42)));
+        assertEquals(HttpStatus.SC_NOT_IMPLEMENTED, response.getStatusLine()
+            .getStatusCode());
+        EntityUtils.consumeQuietly(response.getEntity());
+    }
+
+    /**
+     * Verifies stubs of lazy operations are created on first use only
+     */
+    @Test
+    public void testLazyStubs() throws IOException {
+        server.setLazyStubs(true);
+        try {
+            CompiledSpecification compiled = server.stubHelper
+                .compile(SyntheticSpecification.create(10));
+            server.setCompiledSpecification(compiled);
+            server.reset();
+
+            // Only default stubs shared by all operations are installed,
+            // next to the stubs serving the specification
+            int shared = 0;
+            for (StubMapping mapping : compiled.getMappings()) {
+                if (!SwaggerMockServer.SPECIFICATION_PATH.equals(mapping
+                    .getRequest().getUrl())) {
+                    shared++;
+                }
+            }
+            assertEquals(2, shared);
+            assertTrue(server.getCreatedStubs().isEmpty());
+
+            HttpClient client = new DefaultHttpClient();
+            HttpResponse response = client.execute(new HttpGet(
+                "http://localhost:5151"
+                    + SyntheticSpecification.requestUrl(3)));
+            assertEquals(HttpStatus.SC_NOT_IMPLEMENTED, response
+                .getStatusLine().getStatusCode());
+            EntityUtils.consumeQuietly(response.getEntity());
+
+            response = client.execute(new HttpPost("http://localhost:5151"
+                + SyntheticSpecification.requestUrl(4)));
+            assertEquals(HttpStatus.SC_BAD_REQUEST, response
+                .getStatusLine().getStatusCode());
+            EntityUtils.consumeQuietly(response.getEntity());
+
+            assertEquals(2, server.getCreatedStubs().size());
+            assertTrue(server.getCreatedStubs().containsKey(
+                SyntheticSpecification.getOperationId(3)));
+            assertTrue(server.getCreatedStubs().containsKey(
+                SyntheticSpecification.postOperationId(4)));
+
+            // Retrieving stub creates it
+            assertNotNull(server.when(SyntheticSpecification
+                .getOperationId(5)));
+            assertEquals(3, server.getCreatedStubs().size());
+
+            // All operations are returned
+            assertEquals(20, server.getOperations().size());
+            assertEquals(20, server.getStubs().size());
+        } finally {
+            server.setLazyStubs(false);
+        }
+    }
+
+    /**
+     * Verifies specification is served compressed and conditionally
+     */
+    @Test
+    public void testSpecificationServed() throws IOException {
+        server.stubHelper.createStubs(SyntheticSpecification.create(10));
+        String url = "http://localhost:5151"
+            + SwaggerMockServer.SPECIFICATION_PATH;
+        HttpClient client = new DefaultHttpClient();
+
+        HttpResponse response = client.execute(new HttpGet(url));
+        assertEquals(HttpStatus.SC_OK, response.getStatusLine()
+            .getStatusCode());
+        assertTrue(EntityUtils.toString(response.getEntity()).contains(
+            SyntheticSpecification.getOperationId(3)));
+        String etag = response.getFirstHeader(HttpHeaders.ETAG).getValue();
+
+        HttpGet request = new HttpGet(url);
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        response = client.execute(request);
+        assertEquals("gzip", response.getFirstHeader(
+            HttpHeaders.CONTENT_ENCODING).getValue());
+        EntityUtils.consumeQuietly(response.getEntity());
+
+        request = new HttpGet(url);
+        request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        response = client.execute(request);
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, response.getStatusLine()
+            .getStatusCode());
+    }
+
+    /**
+     * Verifies stubs matching URLs by regular expressions written for
+     * untyped path parameters are still accepted for typed operations
+     */
+    @Test
+    public void testUntypedRegularExpressionStub() throws IOException {
+        server.stubHelper.createStubs(SyntheticSpecification.create(10));
+
+        RequestPattern untyped = new RequestPatternBuilder(RequestMethod.GET,
+            urlMatching("/resources/r3/items/.*")).build();
+        Operation operation = server.getOperation(untyped);
+        assertNotNull(operation);
+        assertEquals(SyntheticSpecification.getOperationId(3), operation
+            .getOperationId());
+
+        assertNull(server.getOperation(new RequestPatternBuilder(
+            RequestMethod.GET, urlMatching("/resources/r3/other/.*"))
+            .build()));
+
+        server.stubFor(get(urlMatching("/resources/r3/items/.*")).atPriority(
+            1).willReturn(aResponse().withStatus(HttpStatus.SC_OK)));
+        HttpResponse response = new DefaultHttpClient().execute(new HttpGet(
+            "http://localhost:5151" + SyntheticSpecification.requestUrl(3)));
+        assertEquals(HttpStatus.SC_OK, response.getStatusLine()
+            .getStatusCode());
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2016 UniKnow (info.uniknow@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.uniknow.agiledev.docMockRest.swagger;
+
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.PathParameter;
+import io.swagger.models.parameters.QueryParameter;
+
+/**
+ * Creates swagger specifications of arbitrary size for benchmarks.
+ */
+class SyntheticSpecification {
+
+    /**
+     * Returns specification containing the specified number of paths. Every
+     * path has a GET operation with an integer path parameter and a POST
+     * operation with a mandatory query parameter.
+     */
+    static Swagger create(int paths) {
+        Swagger swagger = new Swagger();
+        for (int i = 0; i < paths; i++) {
+            PathParameter id = new PathParameter();
+            id.setName("id");
+            id.setType("integer");
+
+            Operation get = new Operation();
+            get.setOperationId(getOperationId(i));
+            get.addParameter(id);
+
+            QueryParameter name = new QueryParameter();
+            name.setName("name");
+            name.setType("string");
+            name.setRequired(true);
+
+            Operation post = new Operation();
+            post.setOperationId(postOperationId(i));
+            post.addParameter(name);
+
+            Path path = new Path();
+            path.setGet(get);
+            path.setPost(post);
+            swagger.path(url(i), path);
+        }
+        return swagger;
+    }
+
+    static String url(int path) {
+        return "/resources/r" + path + "/items/{id}";
+    }
+
+    /**
+     * Returns URL of request for GET operation of path
+     */
+    static String requestUrl(int path) {
+        return "/resources/r" + path + "/items/" + path;
+    }
+
+    static String getOperationId(int path) {
+        return "get" + path;
+    }
+
+    static String postOperationId(int path) {
+        return "post" + path;
+    }
+}